@@ -0,0 +1,199 @@
+package chihalu.automated.tree.harvesting.logic;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import chihalu.automated.tree.harvesting.config.HarvestProfile;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.block.BlockState;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtHelper;
+import net.minecraft.nbt.NbtInt;
+import net.minecraft.nbt.NbtIntArray;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtList;
+import net.minecraft.nbt.NbtLongArray;
+import net.minecraft.nbt.NbtSizeTracker;
+import net.minecraft.registry.Registries;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+
+public final class HarvestTraceReplay {
+	private static final int DEFAULT_ITERATIONS = 10;
+
+	private HarvestTraceReplay() {
+	}
+
+	public record Report(int scans, int iterations, long elapsedNanos, long allocatedBytes, long blocks, int mismatches) {
+		public double scansPerSecond() {
+			return elapsedNanos == 0L ? 0.0D : scans * (double) iterations * 1_000_000_000.0D / elapsedNanos;
+		}
+
+		public String summary() {
+			return String.format(
+				"Replayed %d scans x %d in %.2f ms: %.0f scans/s, %d blocks, %s allocated, %d mismatches",
+				scans,
+				iterations,
+				elapsedNanos / 1_000_000.0D,
+				scansPerSecond(),
+				blocks,
+				allocatedBytes < 0L ? "unknown" : String.format("%.1f MiB", allocatedBytes / (1024.0D * 1024.0D)),
+				mismatches
+			);
+		}
+	}
+
+	private record Trace(TraceTags tags, List<ReplayScan> scans) {
+	}
+
+	private record ReplayScan(
+		BlockPos support,
+		Vec3d framePos,
+		HarvestProfile profile,
+		Long2ObjectMap<BlockState> states,
+		boolean mayContainLogs,
+		int blocks
+	) {
+	}
+
+	// Headless entry point, run through the replayHarvestTrace Gradle task. Only the
+	// vanilla registries are bootstrapped; tag and species answers come from the trace.
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1 || args.length > 2) {
+			System.err.println("Usage: HarvestTraceReplay <trace.nbt> [iterations]");
+			System.exit(2);
+			return;
+		}
+		SharedConstants.createGameVersion();
+		Bootstrap.initialize();
+
+		Path path = Path.of(args[0]);
+		int iterations = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ITERATIONS;
+		Report report = replay(path, Math.max(1, iterations));
+		System.out.println(path.getFileName() + ": " + report.summary());
+	}
+
+	// Replays the read-only scan phases (base search, log and leaf collection) of each
+	// recorded frame activation against the block states it saw. Breaking, drops and
+	// replanting need a live world and are not part of the replay.
+	public static Report replay(Path path, int iterations) throws IOException {
+		Trace trace = read(path);
+		List<ReplayScan> scans = trace.scans();
+
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		com.sun.management.ThreadMXBean allocation = threads instanceof com.sun.management.ThreadMXBean bean
+			&& bean.isThreadAllocatedMemorySupported() ? bean : null;
+		long allocatedBefore = allocation != null ? allocation.getCurrentThreadAllocatedBytes() : 0L;
+		long start = System.nanoTime();
+		long blocks = 0L;
+		int mismatches = 0;
+		for (int iteration = 0; iteration < iterations; iteration++) {
+			for (ReplayScan scan : scans) {
+				ScanView view = ScanView.replaying(scan.states(), scan.mayContainLogs(), trace.tags());
+				int found = TreeHarvestManager.replayScan(view, scan.support(), scan.framePos(), scan.profile(), scan.blocks() != TraceScan.NOT_HARVESTED);
+				if (found > 0) {
+					blocks += found;
+				}
+				if (iteration == 0 && isMismatch(scan.blocks(), found)) {
+					mismatches++;
+				}
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+		long allocated = allocation != null ? allocation.getCurrentThreadAllocatedBytes() - allocatedBefore : -1L;
+		return new Report(scans.size(), iterations, elapsed, allocated, blocks, mismatches);
+	}
+
+	private static boolean isMismatch(int recorded, int found) {
+		if (recorded == TraceScan.NOT_HARVESTED) {
+			return found == TraceScan.NO_TREE;
+		}
+		return recorded != found;
+	}
+
+	private static Trace read(Path path) throws IOException {
+		NbtCompound root = NbtIo.readCompressed(path, NbtSizeTracker.ofUnlimitedBytes());
+		if (!(root.get(HarvestTraceRecorder.VERSION_KEY) instanceof NbtInt version) || version.intValue() != HarvestTraceRecorder.FORMAT_VERSION) {
+			throw new IOException("Unsupported harvest trace format in " + path.getFileName());
+		}
+		if (!(root.get(HarvestTraceRecorder.PALETTE_KEY) instanceof NbtList paletteList)
+			|| !(root.get(HarvestTraceRecorder.TAGS_KEY) instanceof NbtCompound tagsCompound)
+			|| !(root.get(HarvestTraceRecorder.SCANS_KEY) instanceof NbtList scanList)) {
+			throw new IOException("Malformed harvest trace " + path.getFileName());
+		}
+
+		BlockState[] palette = new BlockState[paletteList.size()];
+		for (int i = 0; i < palette.length; i++) {
+			if (!(paletteList.get(i) instanceof NbtCompound compound)) {
+				throw new IOException("Malformed block state palette in " + path.getFileName());
+			}
+			palette[i] = NbtHelper.toBlockState(Registries.BLOCK, compound);
+		}
+		TraceTags tags;
+		try {
+			tags = TraceTags.read(tagsCompound, palette);
+		} catch (IOException e) {
+			throw new IOException(e.getMessage() + " in " + path.getFileName(), e);
+		}
+
+		List<ReplayScan> scans = new ArrayList<>(scanList.size());
+		for (NbtElement element : scanList) {
+			if (!(element instanceof NbtCompound compound)
+				|| !(compound.get(TraceScan.HEADER_KEY) instanceof NbtLongArray headerArray)
+				|| !(compound.get(TraceScan.PROFILE_KEY) instanceof NbtIntArray profileArray)
+				|| !(compound.get(TraceScan.POSITIONS_KEY) instanceof NbtLongArray positionArray)
+				|| !(compound.get(TraceScan.STATES_KEY) instanceof NbtIntArray stateArray)) {
+				throw new IOException("Malformed scan in " + path.getFileName());
+			}
+			long[] header = headerArray.getLongArray();
+			int[] bounds = profileArray.getIntArray();
+			long[] positions = positionArray.getLongArray();
+			int[] states = stateArray.getIntArray();
+			if (header.length != 6 || bounds.length != 5 || positions.length != states.length) {
+				throw new IOException("Malformed scan in " + path.getFileName());
+			}
+
+			Long2ObjectMap<BlockState> stateMap = new Long2ObjectOpenHashMap<>(positions.length);
+			for (int i = 0; i < positions.length; i++) {
+				if (states[i] < 0 || states[i] >= palette.length) {
+					throw new IOException("Palette index out of range in " + path.getFileName());
+				}
+				stateMap.put(positions[i], palette[states[i]]);
+			}
+
+			HarvestProfile defaults = HarvestProfile.DEFAULT;
+			HarvestProfile profile = HarvestProfile.of(
+				bounds[0],
+				bounds[1],
+				bounds[2],
+				bounds[3],
+				bounds[4],
+				defaults.replantDelayTicks(),
+				defaults.checkIntervalTicks(),
+				defaults.maxCheckIntervalTicks(),
+				defaults.warmupTicks(),
+				defaults.aggregateLeafLoot(),
+				defaults.leafLootSamples(),
+				defaults.areaPlotRadius(),
+				defaults.areaPlotSpacing()
+			);
+			scans.add(new ReplayScan(
+				BlockPos.fromLong(header[0]),
+				new Vec3d(Double.longBitsToDouble(header[1]), Double.longBitsToDouble(header[2]), Double.longBitsToDouble(header[3])),
+				profile,
+				stateMap,
+				header[4] == 0L,
+				(int) header[5]
+			));
+		}
+		return new Trace(tags, scans);
+	}
+}
@@ -0,0 +1,136 @@
+package chihalu.automated.tree.harvesting.logic;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.registry.Registries;
+import net.minecraft.state.property.Property;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+
+public final class PendingPlantHeapBenchmark {
+	// Measures the heap retained by pending replant jobs in the compact store against
+	// the layout it replaced: a ticking map of positions to state arrays plus a
+	// persistence map of positions to block ids and copied property maps. Every tenth
+	// job is a 2x2 tree. Run with a serial collector so the used heap after a full GC
+	// is stable.
+	private static final int DEFAULT_ENTRIES = 100_000;
+	private static final int GC_PASSES = 5;
+	private static final int ROW = 1000;
+
+	// Keeps the measured structures reachable while the heap is sampled.
+	private static Object retained;
+
+	private PendingPlantHeapBenchmark() {
+	}
+
+	public static void main(String[] args) {
+		int entries = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ENTRIES;
+		SharedConstants.createGameVersion();
+		Bootstrap.initialize();
+
+		BlockState oakSapling = Blocks.OAK_SAPLING.getDefaultState();
+		BlockState darkOakSapling = Blocks.DARK_OAK_SAPLING.getDefaultState();
+		BlockState grass = Blocks.GRASS_BLOCK.getDefaultState();
+		BlockState dirt = Blocks.DIRT.getDefaultState();
+		BlockState[] single = { grass };
+		BlockState[] square = { grass, dirt, grass, grass };
+
+		long legacy = measure(() -> buildLegacy(entries, oakSapling, darkOakSapling, single, square));
+		long compact = measure(() -> buildStore(entries, oakSapling, darkOakSapling, single, square));
+		System.out.printf("Pending plants: %d (every tenth 2x2) on %s%n", entries, Runtime.version());
+		System.out.printf("Separate tick and storage maps: %.1f MB%n", legacy / 1_048_576.0);
+		System.out.printf("Compact store:                  %.1f MB%n", compact / 1_048_576.0);
+	}
+
+	private static long measure(Supplier<Object> builder) {
+		retained = null;
+		long before = usedHeap();
+		retained = builder.get();
+		long after = usedHeap();
+		retained = null;
+		return after - before;
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < GC_PASSES; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private static BlockPos anchor(int index) {
+		return new BlockPos((index % ROW) * 3, 64, (index / ROW) * 3);
+	}
+
+	private static Object buildStore(int entries, BlockState oakSapling, BlockState darkOakSapling, BlockState[] single, BlockState[] square) {
+		PendingPlantStore store = new PendingPlantStore();
+		for (int i = 0; i < entries; i++) {
+			boolean large = i % 10 == 0;
+			store.add(anchor(i).asLong(), large ? darkOakSapling : oakSapling, large ? square : single, i);
+		}
+		return store;
+	}
+
+	private static Object buildLegacy(int entries, BlockState oakSapling, BlockState darkOakSapling, BlockState[] single, BlockState[] square) {
+		Map<BlockPos, LegacyPlant> ticking = new LinkedHashMap<>();
+		Map<BlockPos, LegacyEntry> stored = new HashMap<>();
+		for (int i = 0; i < entries; i++) {
+			boolean large = i % 10 == 0;
+			BlockState sapling = large ? darkOakSapling : oakSapling;
+			BlockState[] below = large ? square : single;
+			ticking.put(anchor(i), new LegacyPlant(sapling, below.clone(), i));
+			stored.put(anchor(i), LegacyEntry.fromStates(sapling, below, i));
+		}
+		return new Object[] { ticking, stored };
+	}
+
+	private record LegacyPlant(BlockState saplingState, BlockState[] belowStates, long createdTick) {
+	}
+
+	private record LegacyState(Identifier id, Map<String, String> properties) {
+	}
+
+	private record LegacyEntry(
+		Identifier saplingId,
+		Map<String, String> saplingProperties,
+		Identifier belowId,
+		Map<String, String> belowProperties,
+		List<LegacyState> extraBelow,
+		long createdTick
+	) {
+		static LegacyEntry fromStates(BlockState saplingState, BlockState[] belowStates, long createdTick) {
+			List<LegacyState> extraBelow = new ArrayList<>();
+			for (int i = 1; i < belowStates.length; i++) {
+				extraBelow.add(new LegacyState(Registries.BLOCK.getId(belowStates[i].getBlock()), Map.copyOf(encodeProperties(belowStates[i]))));
+			}
+			return new LegacyEntry(
+				Registries.BLOCK.getId(saplingState.getBlock()),
+				Map.copyOf(encodeProperties(saplingState)),
+				Registries.BLOCK.getId(belowStates[0].getBlock()),
+				Map.copyOf(encodeProperties(belowStates[0])),
+				List.copyOf(extraBelow),
+				createdTick
+			);
+		}
+
+		@SuppressWarnings({ "rawtypes", "unchecked" })
+		private static Map<String, String> encodeProperties(BlockState state) {
+			Map<String, String> values = new HashMap<>();
+			for (Map.Entry<Property<?>, Comparable<?>> entry : state.getEntries().entrySet()) {
+				Property property = entry.getKey();
+				values.put(property.getName(), property.name(entry.getValue()));
+			}
+			return values;
+		}
+	}
+}
@@ -1,10 +1,33 @@
 package chihalu.automated.tree.harvesting;
 
+import chihalu.automated.tree.harvesting.network.HarvestEffectsPayload;
 import net.fabricmc.api.ClientModInitializer;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.math.BlockPos;
 
 public class AutomatedTreeHarvestingClient implements ClientModInitializer {
 	@Override
 	public void onInitializeClient() {
-		// This entrypoint is suitable for setting up client-specific logic, such as rendering.
+		ClientPlayNetworking.registerGlobalReceiver(HarvestEffectsPayload.ID, (payload, context) -> {
+			ClientWorld world = context.client().world;
+			if (world != null) {
+				spawnBreakParticles(world, payload);
+			}
+		});
 	}
-}
\ No newline at end of file
+
+	private static void spawnBreakParticles(ClientWorld world, HarvestEffectsPayload payload) {
+		BlockPos.Mutable pos = new BlockPos.Mutable();
+		long[] positions = payload.positions();
+		int[] stateIds = payload.stateIds();
+		for (int i = 0; i < positions.length; i++) {
+			BlockState state = Block.getStateFromRawId(stateIds[i]);
+			if (!state.isAir()) {
+				world.addBlockBreakParticles(pos.set(positions[i]), state);
+			}
+		}
+	}
+}
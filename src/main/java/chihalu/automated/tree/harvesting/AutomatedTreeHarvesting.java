@@ -1,13 +1,29 @@
 package chihalu.automated.tree.harvesting;
 
-import chihalu.automated.tree.harvesting.access.HarvestableItemFrame;
+import chihalu.automated.tree.harvesting.command.HarvestCommands;
+import chihalu.automated.tree.harvesting.config.HarvestConfig;
+import chihalu.automated.tree.harvesting.config.HarvestProfile;
+import chihalu.automated.tree.harvesting.logic.FrameScheduler;
+import chihalu.automated.tree.harvesting.logic.HarvestTraceRecorder;
+import chihalu.automated.tree.harvesting.logic.HarvestWorldState;
 import chihalu.automated.tree.harvesting.logic.TreeHarvestManager;
+import chihalu.automated.tree.harvesting.network.HarvestEffectsPayload;
+import chihalu.automated.tree.harvesting.species.TreeSpeciesManager;
 import net.fabricmc.api.ModInitializer;
+import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
+import net.fabricmc.fabric.api.event.lifecycle.v1.CommonLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerWorldEvents;
+import net.fabricmc.fabric.api.networking.v1.PayloadTypeRegistry;
+import net.fabricmc.fabric.api.resource.ResourceManagerHelper;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.decoration.ItemFrameEntity;
+import net.minecraft.resource.ResourceType;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.TypeFilter;
+import net.minecraft.util.profiler.Profiler;
+import net.minecraft.util.profiler.Profilers;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,20 +34,36 @@ public class AutomatedTreeHarvesting implements ModInitializer {
 
 	@Override
 	public void onInitialize() {
+		HarvestConfig.load();
+		PayloadTypeRegistry.playS2C().register(HarvestEffectsPayload.ID, HarvestEffectsPayload.CODEC);
+		ResourceManagerHelper.get(ResourceType.SERVER_DATA).registerReloadListener(new TreeSpeciesManager());
+		CommonLifecycleEvents.TAGS_LOADED.register((registries, client) -> {
+			if (!client) {
+				TreeSpeciesManager.compile();
+			}
+		});
+		ServerWorldEvents.LOAD.register((server, world) -> HarvestWorldState.load(world));
+		ServerWorldEvents.UNLOAD.register((server, world) -> HarvestWorldState.unload(world));
+		ServerLifecycleEvents.SERVER_STOPPED.register(HarvestWorldState::unloadAll);
+		ServerLifecycleEvents.SERVER_STOPPED.register(HarvestTraceRecorder::onServerStopped);
 		ServerTickEvents.END_WORLD_TICK.register(this::handleWorldTick);
+		ServerTickEvents.END_SERVER_TICK.register(HarvestTraceRecorder::tick);
+		CommandRegistrationCallback.EVENT.register((dispatcher, registryAccess, environment) -> HarvestCommands.register(dispatcher));
 		LOGGER.info("Automated tree harvesting enabled");
 	}
 
 	private void handleWorldTick(ServerWorld world) {
-		long time = world.getTime();
-		world.getEntitiesByType(
-			TypeFilter.instanceOf(ItemFrameEntity.class),
-			Entity::isAlive
-		).forEach(frame -> {
-			if (((HarvestableItemFrame) frame).automated_tree_harvesting$shouldProcess(time)) {
-				TreeHarvestManager.onFrameTick(world, frame);
-			}
-		});
-		TreeHarvestManager.tick(world);
+		Profiler profiler = Profilers.get();
+		profiler.push("treeHarvesting");
+		try {
+			HarvestProfile harvestProfile = HarvestConfig.profile(world);
+			world.getEntitiesByType(
+				TypeFilter.instanceOf(ItemFrameEntity.class),
+				Entity::isAlive
+			).forEach(frame -> FrameScheduler.tickFrame(world, frame, harvestProfile));
+			TreeHarvestManager.tick(world);
+		} finally {
+			profiler.pop();
+		}
 	}
 }
@@ -0,0 +1,9 @@
+package chihalu.automated.tree.harvesting.access;
+
+import chihalu.automated.tree.harvesting.logic.HarvestWorldState;
+
+public interface HarvestWorldStateHolder {
+	HarvestWorldState automated_tree_harvesting$getHarvestState();
+
+	void automated_tree_harvesting$setHarvestState(HarvestWorldState state);
+}
@@ -1,5 +1,19 @@
 package chihalu.automated.tree.harvesting.access;
 
 public interface HarvestableItemFrame {
-	boolean automated_tree_harvesting$shouldProcess(long worldTime);
+	long automated_tree_harvesting$getNextCheckTime();
+
+	void automated_tree_harvesting$setNextCheckTime(long nextCheckTime);
+
+	long automated_tree_harvesting$getLastCheckTime();
+
+	void automated_tree_harvesting$setLastCheckTime(long lastCheckTime);
+
+	long automated_tree_harvesting$getLastSeenTime();
+
+	void automated_tree_harvesting$setLastSeenTime(long lastSeenTime);
+
+	int automated_tree_harvesting$getCheckInterval();
+
+	void automated_tree_harvesting$setCheckInterval(int checkInterval);
 }
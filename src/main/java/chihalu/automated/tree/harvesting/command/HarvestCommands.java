@@ -0,0 +1,152 @@
+package chihalu.automated.tree.harvesting.command;
+
+import java.util.List;
+
+import chihalu.automated.tree.harvesting.AutomatedTreeHarvesting;
+import chihalu.automated.tree.harvesting.config.HarvestConfig;
+import chihalu.automated.tree.harvesting.logic.FrameCostTracker;
+import chihalu.automated.tree.harvesting.logic.HarvestTraceRecorder;
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.arguments.LongArgumentType;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.command.CommandManager;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.text.Text;
+
+public final class HarvestCommands {
+	private static final int DEFAULT_HOTSPOT_COUNT = 10;
+	private static final int DEFAULT_TRACE_SECONDS = 60;
+
+	private HarvestCommands() {
+	}
+
+	public static void register(CommandDispatcher<ServerCommandSource> dispatcher) {
+		dispatcher.register(CommandManager.literal("treeharvest")
+			.requires(source -> source.hasPermissionLevel(2))
+			.then(CommandManager.literal("reload")
+				.executes(context -> reloadConfig(context.getSource())))
+			.then(CommandManager.literal("hotspots")
+				.executes(context -> listHotspots(context.getSource(), DEFAULT_HOTSPOT_COUNT))
+				.then(CommandManager.argument("count", IntegerArgumentType.integer(1, 100))
+					.executes(context -> listHotspots(context.getSource(), IntegerArgumentType.getInteger(context, "count"))))
+				.then(CommandManager.literal("reset")
+					.executes(context -> resetHotspots(context.getSource()))))
+			.then(CommandManager.literal("backoff")
+				.executes(context -> showBackoff(context.getSource()))
+				.then(CommandManager.literal("off")
+					.executes(context -> setBackoff(context.getSource(), false, FrameCostTracker.getBackoffThresholdNanos() / 1000L, FrameCostTracker.getBackoffTicks())))
+				.then(CommandManager.argument("thresholdMicros", LongArgumentType.longArg(1L))
+					.executes(context -> setBackoff(
+						context.getSource(),
+						true,
+						LongArgumentType.getLong(context, "thresholdMicros"),
+						FrameCostTracker.getBackoffTicks()
+					))
+					.then(CommandManager.argument("ticks", LongArgumentType.longArg(1L))
+						.executes(context -> setBackoff(
+							context.getSource(),
+							true,
+							LongArgumentType.getLong(context, "thresholdMicros"),
+							LongArgumentType.getLong(context, "ticks")
+						)))))
+			.then(CommandManager.literal("trace")
+				.then(CommandManager.literal("start")
+					.executes(context -> startTrace(context.getSource(), DEFAULT_TRACE_SECONDS))
+					.then(CommandManager.argument("seconds", IntegerArgumentType.integer(1, 3600))
+						.executes(context -> startTrace(context.getSource(), IntegerArgumentType.getInteger(context, "seconds")))))
+				.then(CommandManager.literal("stop")
+					.executes(context -> stopTrace(context.getSource())))));
+	}
+
+	private static int reloadConfig(ServerCommandSource source) {
+		if (!HarvestConfig.load()) {
+			source.sendError(Text.literal("Failed to reload " + HarvestConfig.path().getFileName() + ", see the server log"));
+			return 0;
+		}
+		source.sendFeedback(() -> Text.literal("Reloaded " + HarvestConfig.path().getFileName()), true);
+		return 1;
+	}
+
+	private static int listHotspots(ServerCommandSource source, int count) {
+		List<FrameCostTracker.Hotspot> hotspots = FrameCostTracker.topHotspots(source.getServer(), count);
+		if (hotspots.isEmpty()) {
+			source.sendFeedback(() -> Text.literal("No harvesting frames have been measured yet"), false);
+			return 0;
+		}
+
+		source.sendFeedback(() -> Text.literal("Top " + hotspots.size() + " harvesting frames by total cost:"), false);
+		int rank = 1;
+		for (FrameCostTracker.Hotspot hotspot : hotspots) {
+			String line = String.format(
+				"%d. %s [%d, %d, %d] total %.2f ms, %d activations, avg %.1f us, %d harvests%s",
+				rank++,
+				hotspot.worldKey().getValue(),
+				hotspot.pos().getX(),
+				hotspot.pos().getY(),
+				hotspot.pos().getZ(),
+				hotspot.totalNanos() / 1_000_000.0D,
+				hotspot.activations(),
+				hotspot.averageNanos() / 1_000.0D,
+				hotspot.harvests(),
+				hotspot.backedOff() ? " (backed off)" : ""
+			);
+			source.sendFeedback(() -> Text.literal(line), false);
+		}
+		return hotspots.size();
+	}
+
+	private static int resetHotspots(ServerCommandSource source) {
+		FrameCostTracker.reset(source.getServer());
+		source.sendFeedback(() -> Text.literal("Cleared harvesting frame cost statistics"), true);
+		return 1;
+	}
+
+	private static int showBackoff(ServerCommandSource source) {
+		String line = FrameCostTracker.isBackoffEnabled()
+			? String.format(
+				"Cost back-off is enabled: frames above %d us are paused for %d ticks",
+				FrameCostTracker.getBackoffThresholdNanos() / 1000L,
+				FrameCostTracker.getBackoffTicks()
+			)
+			: "Cost back-off is disabled";
+		source.sendFeedback(() -> Text.literal(line), false);
+		return FrameCostTracker.isBackoffEnabled() ? 1 : 0;
+	}
+
+	private static int setBackoff(ServerCommandSource source, boolean enabled, long thresholdMicros, long ticks) {
+		if (!HarvestConfig.saveBackoff(enabled, thresholdMicros, ticks)) {
+			source.sendError(Text.literal("Failed to save " + HarvestConfig.path().getFileName() + ", see the server log"));
+			return 0;
+		}
+		return showBackoff(source);
+	}
+
+	private static int startTrace(ServerCommandSource source, int seconds) {
+		if (!HarvestTraceRecorder.start(source.getServer(), seconds * 20)) {
+			source.sendError(Text.literal("A harvest trace is already being recorded"));
+			return 0;
+		}
+		source.sendFeedback(() -> Text.literal("Recording harvest trace for " + seconds + " s"), true);
+		return 1;
+	}
+
+	private static int stopTrace(ServerCommandSource source) {
+		if (!HarvestTraceRecorder.isRecording()) {
+			source.sendError(Text.literal("No harvest trace is being recorded"));
+			return 0;
+		}
+		MinecraftServer server = source.getServer();
+		HarvestTraceRecorder.stop().whenComplete((path, error) -> server.execute(() -> {
+			if (error != null) {
+				AutomatedTreeHarvesting.LOGGER.warn("Failed to write harvest trace", error);
+				source.sendError(Text.literal("Failed to write harvest trace, see the server log"));
+			} else {
+				source.sendFeedback(() -> Text.literal("Wrote harvest trace " + path.getFileName()), true);
+			}
+		}));
+		source.sendFeedback(() -> Text.literal("Stopped harvest trace, writing it in the background"), false);
+		return 1;
+	}
+}
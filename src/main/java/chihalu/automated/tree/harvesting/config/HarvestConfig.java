@@ -0,0 +1,216 @@
+package chihalu.automated.tree.harvesting.config;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import chihalu.automated.tree.harvesting.AutomatedTreeHarvesting;
+import chihalu.automated.tree.harvesting.logic.FrameCostTracker;
+import chihalu.automated.tree.harvesting.species.TreeSpeciesManager;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.Identifier;
+import net.minecraft.world.World;
+
+public final class HarvestConfig {
+	private static final String FILE_NAME = AutomatedTreeHarvesting.MOD_ID + ".json";
+	private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+	private static volatile Snapshot current = new Snapshot(HarvestProfile.DEFAULT, Map.of(), false, 2000L, 600L);
+
+	private HarvestConfig() {
+	}
+
+	private record Snapshot(
+		HarvestProfile defaultProfile,
+		Map<RegistryKey<World>, HarvestProfile> dimensionProfiles,
+		boolean costBackoffEnabled,
+		long costBackoffThresholdMicros,
+		long costBackoffTicks
+	) {
+	}
+
+	public static HarvestProfile profile(ServerWorld world) {
+		Snapshot snapshot = current;
+		HarvestProfile profile = snapshot.dimensionProfiles.get(world.getRegistryKey());
+		return profile != null ? profile : snapshot.defaultProfile;
+	}
+
+	public static List<HarvestProfile> profiles() {
+		Snapshot snapshot = current;
+		List<HarvestProfile> profiles = new ArrayList<>(snapshot.dimensionProfiles.values());
+		profiles.add(snapshot.defaultProfile);
+		return profiles;
+	}
+
+	public static Path path() {
+		return FabricLoader.getInstance().getConfigDir().resolve(FILE_NAME);
+	}
+
+	public static boolean load() {
+		Path path = path();
+		try {
+			if (Files.notExists(path)) {
+				Files.createDirectories(path.getParent());
+				try (Writer writer = Files.newBufferedWriter(path)) {
+					GSON.toJson(writeDefaults(), writer);
+				}
+			}
+			JsonObject root;
+			try (Reader reader = Files.newBufferedReader(path)) {
+				root = JsonParser.parseReader(reader).getAsJsonObject();
+			}
+			apply(parse(root));
+			return true;
+		} catch (IOException | JsonParseException | IllegalStateException | NumberFormatException e) {
+			AutomatedTreeHarvesting.LOGGER.warn("Failed to load {}, keeping previous settings", path, e);
+			return false;
+		}
+	}
+
+	// Rewrites only the costBackoff section, so the rest of the file keeps whatever the
+	// server owner put there.
+	public static boolean saveBackoff(boolean enabled, long thresholdMicros, long ticks) {
+		Path path = path();
+		try {
+			JsonObject root;
+			if (Files.exists(path)) {
+				try (Reader reader = Files.newBufferedReader(path)) {
+					root = JsonParser.parseReader(reader).getAsJsonObject();
+				}
+			} else {
+				Files.createDirectories(path.getParent());
+				root = writeDefaults();
+			}
+			JsonObject backoff = new JsonObject();
+			backoff.addProperty("enabled", enabled);
+			backoff.addProperty("thresholdMicros", thresholdMicros);
+			backoff.addProperty("ticks", ticks);
+			root.add("costBackoff", backoff);
+			Snapshot snapshot = parse(root);
+			try (Writer writer = Files.newBufferedWriter(path)) {
+				GSON.toJson(root, writer);
+			}
+			apply(snapshot);
+			return true;
+		} catch (IOException | JsonParseException | IllegalStateException | NumberFormatException e) {
+			AutomatedTreeHarvesting.LOGGER.warn("Failed to save cost back-off settings to {}", path, e);
+			return false;
+		}
+	}
+
+	private static void apply(Snapshot snapshot) {
+		current = snapshot;
+		TreeSpeciesManager.compileProfiles();
+		FrameCostTracker.configureBackoff(
+			snapshot.costBackoffEnabled,
+			snapshot.costBackoffThresholdMicros * 1000L,
+			snapshot.costBackoffTicks
+		);
+	}
+
+	private static Snapshot parse(JsonObject root) {
+		HarvestProfile defaultProfile = readProfile(getObject(root, "default"), HarvestProfile.DEFAULT);
+		Map<RegistryKey<World>, HarvestProfile> dimensionProfiles = new HashMap<>();
+		JsonObject dimensions = getObject(root, "dimensions");
+		for (Map.Entry<String, JsonElement> entry : dimensions.entrySet()) {
+			Identifier id = Identifier.tryParse(entry.getKey());
+			if (id == null || !entry.getValue().isJsonObject()) {
+				AutomatedTreeHarvesting.LOGGER.warn("Ignoring invalid dimension profile '{}'", entry.getKey());
+				continue;
+			}
+			RegistryKey<World> key = RegistryKey.of(RegistryKeys.WORLD, id);
+			dimensionProfiles.put(key, readProfile(entry.getValue().getAsJsonObject(), defaultProfile));
+		}
+
+		JsonObject backoff = getObject(root, "costBackoff");
+		return new Snapshot(
+			defaultProfile,
+			Map.copyOf(dimensionProfiles),
+			getBoolean(backoff, "enabled", false),
+			Math.max(1L, getLong(backoff, "thresholdMicros", 2000L)),
+			Math.max(1L, getLong(backoff, "ticks", 600L))
+		);
+	}
+
+	private static HarvestProfile readProfile(JsonObject json, HarvestProfile fallback) {
+		return HarvestProfile.of(
+			Math.max(1, getInt(json, "maxLogs", fallback.maxLogs())),
+			Math.max(0, getInt(json, "maxLeaves", fallback.maxLeaves())),
+			Math.max(1, getInt(json, "horizontalRadius", fallback.horizontalRadius())),
+			Math.max(0, getInt(json, "verticalBelow", fallback.verticalBelow())),
+			Math.max(1, getInt(json, "verticalAbove", fallback.verticalAbove())),
+			Math.max(1L, getLong(json, "replantDelayTicks", fallback.replantDelayTicks())),
+			Math.max(1, getInt(json, "checkIntervalTicks", fallback.checkIntervalTicks())),
+			getInt(json, "maxCheckIntervalTicks", fallback.maxCheckIntervalTicks()),
+			Math.max(0, getInt(json, "warmupTicks", fallback.warmupTicks())),
+			getBoolean(json, "aggregateLeafLoot", fallback.aggregateLeafLoot()),
+			Math.max(1, getInt(json, "leafLootSamples", fallback.leafLootSamples())),
+			Math.clamp(getInt(json, "areaPlotRadius", fallback.areaPlotRadius()), 1, 8),
+			Math.clamp(getInt(json, "areaPlotSpacing", fallback.areaPlotSpacing()), 2, 16)
+		);
+	}
+
+	private static JsonObject writeDefaults() {
+		HarvestProfile profile = HarvestProfile.DEFAULT;
+		JsonObject defaults = new JsonObject();
+		defaults.addProperty("maxLogs", profile.maxLogs());
+		defaults.addProperty("maxLeaves", profile.maxLeaves());
+		defaults.addProperty("horizontalRadius", profile.horizontalRadius());
+		defaults.addProperty("verticalBelow", profile.verticalBelow());
+		defaults.addProperty("verticalAbove", profile.verticalAbove());
+		defaults.addProperty("replantDelayTicks", profile.replantDelayTicks());
+		defaults.addProperty("checkIntervalTicks", profile.checkIntervalTicks());
+		defaults.addProperty("maxCheckIntervalTicks", profile.maxCheckIntervalTicks());
+		defaults.addProperty("warmupTicks", profile.warmupTicks());
+		defaults.addProperty("aggregateLeafLoot", profile.aggregateLeafLoot());
+		defaults.addProperty("leafLootSamples", profile.leafLootSamples());
+		defaults.addProperty("areaPlotRadius", profile.areaPlotRadius());
+		defaults.addProperty("areaPlotSpacing", profile.areaPlotSpacing());
+
+		JsonObject backoff = new JsonObject();
+		backoff.addProperty("enabled", false);
+		backoff.addProperty("thresholdMicros", 2000L);
+		backoff.addProperty("ticks", 600L);
+
+		JsonObject root = new JsonObject();
+		root.add("default", defaults);
+		root.add("dimensions", new JsonObject());
+		root.add("costBackoff", backoff);
+		return root;
+	}
+
+	private static JsonObject getObject(JsonObject json, String key) {
+		JsonElement element = json.get(key);
+		return element != null && element.isJsonObject() ? element.getAsJsonObject() : new JsonObject();
+	}
+
+	private static int getInt(JsonObject json, String key, int fallback) {
+		JsonElement element = json.get(key);
+		return element != null && element.isJsonPrimitive() ? element.getAsInt() : fallback;
+	}
+
+	private static long getLong(JsonObject json, String key, long fallback) {
+		JsonElement element = json.get(key);
+		return element != null && element.isJsonPrimitive() ? element.getAsLong() : fallback;
+	}
+
+	private static boolean getBoolean(JsonObject json, String key, boolean fallback) {
+		JsonElement element = json.get(key);
+		return element != null && element.isJsonPrimitive() ? element.getAsBoolean() : fallback;
+	}
+}
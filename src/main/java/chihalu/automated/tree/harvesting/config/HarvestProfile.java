@@ -0,0 +1,73 @@
+package chihalu.automated.tree.harvesting.config;
+
+public record HarvestProfile(
+	int maxLogs,
+	int maxLeaves,
+	int horizontalRadius,
+	int verticalBelow,
+	int verticalAbove,
+	int leafRadius,
+	int leafVerticalAbove,
+	long replantDelayTicks,
+	int checkIntervalTicks,
+	int maxCheckIntervalTicks,
+	int warmupTicks,
+	boolean aggregateLeafLoot,
+	int leafLootSamples,
+	int areaPlotRadius,
+	int areaPlotSpacing
+) {
+	public static final HarvestProfile DEFAULT = of(512, 2048, 6, 4, 32, 200L, 20, 640, 100, false, 64, 2, 5);
+
+	public static HarvestProfile of(
+		int maxLogs,
+		int maxLeaves,
+		int horizontalRadius,
+		int verticalBelow,
+		int verticalAbove,
+		long replantDelayTicks,
+		int checkIntervalTicks,
+		int maxCheckIntervalTicks,
+		int warmupTicks,
+		boolean aggregateLeafLoot,
+		int leafLootSamples,
+		int areaPlotRadius,
+		int areaPlotSpacing
+	) {
+		return new HarvestProfile(
+			maxLogs,
+			maxLeaves,
+			horizontalRadius,
+			verticalBelow,
+			verticalAbove,
+			horizontalRadius + 2,
+			verticalAbove + 6,
+			replantDelayTicks,
+			checkIntervalTicks,
+			Math.max(checkIntervalTicks, maxCheckIntervalTicks),
+			warmupTicks,
+			aggregateLeafLoot,
+			leafLootSamples,
+			areaPlotRadius,
+			areaPlotSpacing
+		);
+	}
+
+	public HarvestProfile withScanBounds(int horizontalRadius, int verticalAbove) {
+		return of(
+			maxLogs,
+			maxLeaves,
+			horizontalRadius,
+			verticalBelow,
+			verticalAbove,
+			replantDelayTicks,
+			checkIntervalTicks,
+			maxCheckIntervalTicks,
+			warmupTicks,
+			aggregateLeafLoot,
+			leafLootSamples,
+			areaPlotRadius,
+			areaPlotSpacing
+		);
+	}
+}
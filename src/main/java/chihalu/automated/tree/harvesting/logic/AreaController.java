@@ -0,0 +1,73 @@
+package chihalu.automated.tree.harvesting.logic;
+
+import java.util.BitSet;
+
+import net.minecraft.util.math.BlockPos;
+
+final class AreaController {
+	// Plots form a square grid centred on the marker, at the marker's height. The marker
+	// itself sits on the centre cell, which is never a plot. The grown bit of a plot is
+	// set when a log appears on it and cleared once the controller has harvested it.
+	private final BlockPos marker;
+	private final int radius;
+	private final int spacing;
+	private final int side;
+	private final BitSet grown = new BitSet();
+	long lastSeenTick;
+
+	AreaController(BlockPos marker, int radius, int spacing) {
+		this.marker = marker.toImmutable();
+		this.radius = radius;
+		this.spacing = spacing;
+		this.side = radius * 2 + 1;
+	}
+
+	boolean matches(int radius, int spacing) {
+		return this.radius == radius && this.spacing == spacing;
+	}
+
+	int plotCount() {
+		return side * side;
+	}
+
+	boolean isPlot(int index) {
+		return index != plotCount() / 2;
+	}
+
+	BlockPos plot(int index) {
+		return marker.add((index / side - radius) * spacing, 0, (index % side - radius) * spacing);
+	}
+
+	int plotIndex(BlockPos pos) {
+		if (pos.getY() != marker.getY()) {
+			return -1;
+		}
+		int dx = pos.getX() - marker.getX();
+		int dz = pos.getZ() - marker.getZ();
+		if (dx % spacing != 0 || dz % spacing != 0) {
+			return -1;
+		}
+		int column = dx / spacing + radius;
+		int row = dz / spacing + radius;
+		if (column < 0 || column >= side || row < 0 || row >= side || (column == radius && row == radius)) {
+			return -1;
+		}
+		return column * side + row;
+	}
+
+	boolean isIdle() {
+		return grown.isEmpty();
+	}
+
+	int nextGrown(int from) {
+		return grown.nextSetBit(from);
+	}
+
+	void markGrown(int index) {
+		grown.set(index);
+	}
+
+	void clearGrown(int index) {
+		grown.clear(index);
+	}
+}
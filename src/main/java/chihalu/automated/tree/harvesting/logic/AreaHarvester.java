@@ -0,0 +1,112 @@
+package chihalu.automated.tree.harvesting.logic;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import chihalu.automated.tree.harvesting.AutomatedTreeHarvesting;
+import chihalu.automated.tree.harvesting.config.HarvestProfile;
+import chihalu.automated.tree.harvesting.profiling.AreaHarvestEvent;
+import chihalu.automated.tree.harvesting.profiling.HarvestProfiler;
+import net.minecraft.block.Block;
+import net.minecraft.entity.decoration.ItemFrameEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.registry.tag.BlockTags;
+import net.minecraft.registry.tag.TagKey;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+
+final class AreaHarvester {
+	static final TagKey<Block> AREA_CONTROLLERS = TagKey.of(RegistryKeys.BLOCK, Identifier.of(AutomatedTreeHarvesting.MOD_ID, "area_controllers"));
+	private static final long STALE_AFTER_TICKS = 6000L;
+	private static final long PRUNE_INTERVAL_TICKS = 1200L;
+
+	private AreaHarvester() {
+	}
+
+	static boolean isController(ServerWorld world, ItemFrameEntity frame) {
+		return world.getBlockState(frame.getAttachedBlockPos()).isIn(AREA_CONTROLLERS);
+	}
+
+	static int reach(HarvestProfile profile) {
+		return profile.areaPlotRadius() * profile.areaPlotSpacing();
+	}
+
+	// Controllers never search for trees. Plots are read once when the controller is
+	// set up; afterwards the block change hook keeps the grown index current, so an
+	// activation only touches the plots that actually hold a tree.
+	static void onControllerTick(ServerWorld world, ItemFrameEntity frame, HarvestProfile profile) {
+		ItemStack tool = frame.getHeldItemStack();
+		if (!TreeHarvestManager.isAxe(tool) || FrameCostTracker.isBackedOff(world, frame)) {
+			return;
+		}
+
+		HarvestWorldState state = HarvestWorldState.get(world);
+		AreaController controller = controllerFor(world, state, frame.getAttachedBlockPos(), profile);
+		if (controller.isIdle()) {
+			return;
+		}
+
+		BlockPos framePos = frame.getBlockPos();
+		AreaHarvestEvent event = HarvestProfiler.begin("areaHarvest", new AreaHarvestEvent());
+		long startNanos = System.nanoTime();
+		int harvested = 0;
+		List<ItemStack> drops = new ArrayList<>();
+		try {
+			long time = world.getTime();
+			TickScanCache scanCache = state.tickScanCache;
+			for (int index = controller.nextGrown(0); index >= 0; index = controller.nextGrown(index + 1)) {
+				BlockPos base = controller.plot(index);
+				if (!world.getBlockState(base).isIn(BlockTags.LOGS)) {
+					controller.clearGrown(index);
+					continue;
+				}
+				if (!scanCache.claim(time, base)) {
+					continue;
+				}
+				ScanView view = new ScanView(world);
+				harvested += TreeHarvestManager.harvestTree(world, view, scanCache, frame, framePos, tool, profile, base, drops);
+				if (!view.isClipped()) {
+					controller.clearGrown(index);
+				}
+			}
+			TreeHarvestManager.spawnCollectedDrops(world, frame, framePos, drops);
+		} finally {
+			HarvestProfiler.end(event, world, framePos, harvested);
+		}
+		FrameCostTracker.record(world, frame, System.nanoTime() - startNanos, harvested > 0);
+	}
+
+	private static AreaController controllerFor(ServerWorld world, HarvestWorldState state, BlockPos marker, HarvestProfile profile) {
+		AreaController controller = state.areaControllers.get(marker.asLong());
+		if (controller == null || !controller.matches(profile.areaPlotRadius(), profile.areaPlotSpacing())) {
+			controller = new AreaController(marker, profile.areaPlotRadius(), profile.areaPlotSpacing());
+			for (int index = 0; index < controller.plotCount(); index++) {
+				if (controller.isPlot(index) && world.getBlockState(controller.plot(index)).isIn(BlockTags.LOGS)) {
+					controller.markGrown(index);
+				}
+			}
+			state.areaControllers.put(marker.asLong(), controller);
+		}
+		controller.lastSeenTick = world.getTime();
+		return controller;
+	}
+
+	static void onLogPlaced(HarvestWorldState state, BlockPos pos) {
+		for (AreaController controller : state.areaControllers.values()) {
+			int index = controller.plotIndex(pos);
+			if (index >= 0) {
+				controller.markGrown(index);
+			}
+		}
+	}
+
+	static void tick(ServerWorld world, HarvestWorldState state) {
+		long time = world.getTime();
+		if (time % PRUNE_INTERVAL_TICKS != 0 || state.areaControllers.isEmpty()) {
+			return;
+		}
+		state.areaControllers.values().removeIf(controller -> time - controller.lastSeenTick > STALE_AFTER_TICKS);
+	}
+}
@@ -0,0 +1,52 @@
+package chihalu.automated.tree.harvesting.logic;
+
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import net.minecraft.block.BlockState;
+import net.minecraft.registry.tag.BlockTags;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+
+public final class BlockChangeTracker {
+	private static final long PRUNE_INTERVAL_TICKS = 1200L;
+
+	private BlockChangeTracker() {
+	}
+
+	public static void onBlockChanged(ServerWorld world, HarvestWorldState state, BlockPos pos, BlockState oldState, BlockState newState) {
+		if (!newState.isIn(BlockTags.LOGS) || oldState.isIn(BlockTags.LOGS)) {
+			return;
+		}
+		state.logChanges.put(ChunkPos.toLong(pos.getX() >> 4, pos.getZ() >> 4), world.getTime());
+		if (!state.areaControllers.isEmpty()) {
+			AreaHarvester.onLogPlaced(state, pos);
+		}
+	}
+
+	static boolean hasLogChangeSince(ServerWorld world, BlockPos center, int radius, long sinceTick) {
+		Long2LongOpenHashMap changes = HarvestWorldState.get(world).logChanges;
+		if (changes.isEmpty()) {
+			return false;
+		}
+		int minChunkX = (center.getX() - radius) >> 4;
+		int maxChunkX = (center.getX() + radius) >> 4;
+		int minChunkZ = (center.getZ() - radius) >> 4;
+		int maxChunkZ = (center.getZ() + radius) >> 4;
+		for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+			for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+				if (changes.get(ChunkPos.toLong(chunkX, chunkZ)) > sinceTick) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	static void tick(ServerWorld world, HarvestWorldState state, long retainTicks) {
+		long time = world.getTime();
+		if (time % PRUNE_INTERVAL_TICKS != 0) {
+			return;
+		}
+		state.logChanges.long2LongEntrySet().removeIf(entry -> time - entry.getLongValue() > retainTicks);
+	}
+}
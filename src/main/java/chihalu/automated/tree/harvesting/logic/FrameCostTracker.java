@@ -0,0 +1,121 @@
+package chihalu.automated.tree.harvesting.logic;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import net.minecraft.entity.decoration.ItemFrameEntity;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+
+public final class FrameCostTracker {
+	private static final long STALE_AFTER_TICKS = 6000L;
+	private static final long PRUNE_INTERVAL_TICKS = 1200L;
+	private static final double RECENT_COST_WEIGHT = 0.25D;
+
+	private static boolean backoffEnabled = false;
+	private static long backoffThresholdNanos = 2_000_000L;
+	private static long backoffTicks = 600L;
+
+	private FrameCostTracker() {
+	}
+
+	public record Hotspot(RegistryKey<World> worldKey, BlockPos pos, long totalNanos, long activations, long harvests, boolean backedOff) {
+		public long averageNanos() {
+			return activations == 0 ? 0L : totalNanos / activations;
+		}
+	}
+
+	static final class FrameCost {
+		private BlockPos pos;
+		private long totalNanos;
+		private long activations;
+		private long harvests;
+		private double recentNanos;
+		private long lastSeenTick;
+		private long backoffUntil = Long.MIN_VALUE;
+	}
+
+	static boolean isBackedOff(ServerWorld world, ItemFrameEntity frame) {
+		FrameCost cost = HarvestWorldState.get(world).frameCosts.get(frame.getUuid());
+		return backoffEnabled && cost != null && world.getTime() < cost.backoffUntil;
+	}
+
+	static void record(ServerWorld world, ItemFrameEntity frame, long nanos, boolean harvested) {
+		FrameCost cost = HarvestWorldState.get(world).frameCosts.computeIfAbsent(frame.getUuid(), ignored -> new FrameCost());
+		long time = world.getTime();
+		cost.pos = frame.getBlockPos();
+		cost.totalNanos += nanos;
+		cost.activations++;
+		if (harvested) {
+			cost.harvests++;
+		}
+		cost.recentNanos = cost.activations == 1 ? nanos : cost.recentNanos + (nanos - cost.recentNanos) * RECENT_COST_WEIGHT;
+		cost.lastSeenTick = time;
+
+		if (backoffEnabled && cost.recentNanos > backoffThresholdNanos) {
+			cost.backoffUntil = time + backoffTicks;
+		}
+	}
+
+	static void tick(ServerWorld world, HarvestWorldState state) {
+		long time = world.getTime();
+		if (time % PRUNE_INTERVAL_TICKS != 0) {
+			return;
+		}
+		state.frameCosts.values().removeIf(cost -> time - cost.lastSeenTick > STALE_AFTER_TICKS);
+	}
+
+	public static List<Hotspot> topHotspots(MinecraftServer server, int limit) {
+		List<Hotspot> hotspots = new ArrayList<>();
+		for (ServerWorld world : server.getWorlds()) {
+			HarvestWorldState state = HarvestWorldState.getIfLoaded(world);
+			if (state == null) {
+				continue;
+			}
+			long worldTime = world.getTime();
+			for (FrameCost cost : state.frameCosts.values()) {
+				hotspots.add(new Hotspot(
+					world.getRegistryKey(),
+					cost.pos,
+					cost.totalNanos,
+					cost.activations,
+					cost.harvests,
+					backoffEnabled && worldTime < cost.backoffUntil
+				));
+			}
+		}
+		hotspots.sort(Comparator.comparingLong(Hotspot::totalNanos).reversed());
+		return hotspots.size() > limit ? hotspots.subList(0, limit) : hotspots;
+	}
+
+	public static void reset(MinecraftServer server) {
+		for (ServerWorld world : server.getWorlds()) {
+			HarvestWorldState state = HarvestWorldState.getIfLoaded(world);
+			if (state != null) {
+				state.frameCosts.clear();
+			}
+		}
+	}
+
+	public static void configureBackoff(boolean enabled, long thresholdNanos, long ticks) {
+		backoffEnabled = enabled;
+		backoffThresholdNanos = thresholdNanos;
+		backoffTicks = ticks;
+	}
+
+	public static boolean isBackoffEnabled() {
+		return backoffEnabled;
+	}
+
+	public static long getBackoffThresholdNanos() {
+		return backoffThresholdNanos;
+	}
+
+	public static long getBackoffTicks() {
+		return backoffTicks;
+	}
+}
@@ -0,0 +1,102 @@
+package chihalu.automated.tree.harvesting.logic;
+
+import chihalu.automated.tree.harvesting.access.HarvestableItemFrame;
+import chihalu.automated.tree.harvesting.config.HarvestProfile;
+import chihalu.automated.tree.harvesting.species.TreeSpeciesManager;
+import net.minecraft.entity.decoration.ItemFrameEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.MathHelper;
+
+public final class FrameScheduler {
+	private FrameScheduler() {
+	}
+
+	public static void tickFrame(ServerWorld world, ItemFrameEntity frame, HarvestProfile profile) {
+		if (!world.shouldTickEntityAt(frame.getBlockPos())) {
+			return;
+		}
+
+		HarvestableItemFrame harvestable = (HarvestableItemFrame) frame;
+		if (!TreeHarvestManager.isAxe(frame.getHeldItemStack())) {
+			// Decorative frames carry no schedule, so nothing is saved with them either.
+			if (harvestable.automated_tree_harvesting$getNextCheckTime() != Long.MIN_VALUE) {
+				harvestable.automated_tree_harvesting$setNextCheckTime(Long.MIN_VALUE);
+				harvestable.automated_tree_harvesting$setCheckInterval(0);
+			}
+			return;
+		}
+
+		long time = world.getTime();
+		int baseInterval = profile.checkIntervalTicks();
+
+		long lastSeen = harvestable.automated_tree_harvesting$getLastSeenTime();
+		harvestable.automated_tree_harvesting$setLastSeenTime(time);
+		long nextCheck = harvestable.automated_tree_harvesting$getNextCheckTime();
+		boolean resumed = lastSeen == Long.MIN_VALUE || time - lastSeen > 1;
+		if (nextCheck == Long.MIN_VALUE
+			|| (resumed && nextCheck <= time)
+			|| nextCheck - time > (long) profile.maxCheckIntervalTicks() + profile.warmupTicks()) {
+			harvestable.automated_tree_harvesting$setNextCheckTime(time + warmupDelay(frame.getBlockPos(), baseInterval, profile.warmupTicks()));
+			return;
+		}
+
+		int interval = Math.max(baseInterval, harvestable.automated_tree_harvesting$getCheckInterval());
+		long lastCheck = harvestable.automated_tree_harvesting$getLastCheckTime();
+		if (interval > baseInterval
+			&& BlockChangeTracker.hasLogChangeSince(world, frame.getAttachedBlockPos(), profile.horizontalRadius(), lastCheck)) {
+			interval = baseInterval;
+			harvestable.automated_tree_harvesting$setCheckInterval(interval);
+			nextCheck = Math.min(nextCheck, Math.max(time, lastCheck + interval));
+			harvestable.automated_tree_harvesting$setNextCheckTime(nextCheck);
+		}
+
+		if (time < nextCheck) {
+			return;
+		}
+
+		boolean controller = AreaHarvester.isController(world, frame);
+		int reach = controller ? AreaHarvester.reach(profile) : 0;
+		if (!isScanAreaTicking(world, frame.getAttachedBlockPos(), reach + TreeSpeciesManager.leafRadius(profile) + 1)) {
+			harvestable.automated_tree_harvesting$setNextCheckTime(time + interval);
+			return;
+		}
+
+		harvestable.automated_tree_harvesting$setLastCheckTime(time);
+		if (controller) {
+			// An idle controller only checks its plot index, so it never backs off.
+			AreaHarvester.onControllerTick(world, frame, profile);
+			interval = baseInterval;
+		} else {
+			interval = switch (TreeHarvestManager.onFrameTick(world, frame, profile)) {
+				case HARVESTED -> baseInterval;
+				case NO_TREE -> Math.min(interval * 2, profile.maxCheckIntervalTicks());
+				case SKIPPED -> interval;
+			};
+		}
+		harvestable.automated_tree_harvesting$setCheckInterval(interval);
+		harvestable.automated_tree_harvesting$setNextCheckTime(time + interval);
+	}
+
+	private static boolean isScanAreaTicking(ServerWorld world, BlockPos center, int radius) {
+		BlockPos.Mutable probe = new BlockPos.Mutable();
+		int minChunkX = (center.getX() - radius) >> 4;
+		int maxChunkX = (center.getX() + radius) >> 4;
+		int minChunkZ = (center.getZ() - radius) >> 4;
+		int maxChunkZ = (center.getZ() + radius) >> 4;
+		for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+			for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+				probe.set(chunkX << 4, center.getY(), chunkZ << 4);
+				if (!world.shouldTickEntityAt(probe)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private static int warmupDelay(BlockPos pos, int baseInterval, int warmupTicks) {
+		int spread = Math.max(baseInterval, warmupTicks);
+		return 1 + (int) Math.floorMod(MathHelper.hashCode(pos.getX(), pos.getY(), pos.getZ()), (long) spread);
+	}
+}
@@ -0,0 +1,78 @@
+package chihalu.automated.tree.harvesting.logic;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import chihalu.automated.tree.harvesting.network.HarvestEffectsPayload;
+import net.fabricmc.fabric.api.networking.v1.PlayerLookup;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.network.packet.s2c.play.WorldEventS2CPacket;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.sound.SoundCategory;
+import net.minecraft.sound.SoundEvents;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.random.Random;
+
+final class HarvestEffects {
+	private static final int MAX_BREAK_EFFECTS = HarvestEffectsPayload.MAX_BLOCKS;
+	private static final double EFFECT_RANGE_SQUARED = 64.0D * 64.0D;
+
+	private final ServerWorld world;
+	private final BlockPos base;
+	private final Collection<ServerPlayerEntity> watchers;
+	private final long[] positions = new long[MAX_BREAK_EFFECTS];
+	private final int[] rawIds = new int[MAX_BREAK_EFFECTS];
+	private int seen;
+
+	HarvestEffects(ServerWorld world, BlockPos base) {
+		this.world = world;
+		this.base = base;
+		this.watchers = PlayerLookup.tracking(world, new ChunkPos(base));
+	}
+
+	void blockBroken(BlockPos pos, BlockState state) {
+		if (watchers.isEmpty()) {
+			return;
+		}
+
+		// Reservoir sample so a large tree still shows particles spread over its
+		// whole volume instead of only the first blocks in iteration order.
+		int slot = seen < MAX_BREAK_EFFECTS ? seen : world.getRandom().nextInt(seen + 1);
+		seen++;
+		if (slot < MAX_BREAK_EFFECTS) {
+			positions[slot] = pos.asLong();
+			rawIds[slot] = Block.getRawIdFromState(state);
+		}
+	}
+
+	void finish() {
+		if (watchers.isEmpty() || seen == 0) {
+			return;
+		}
+
+		int count = Math.min(seen, MAX_BREAK_EFFECTS);
+		HarvestEffectsPayload payload = null;
+		for (ServerPlayerEntity player : watchers) {
+			if (player.squaredDistanceTo(base.toCenterPos()) > EFFECT_RANGE_SQUARED) {
+				continue;
+			}
+			if (ServerPlayNetworking.canSend(player, HarvestEffectsPayload.ID)) {
+				if (payload == null) {
+					payload = new HarvestEffectsPayload(base, Arrays.copyOf(positions, count), Arrays.copyOf(rawIds, count));
+				}
+				ServerPlayNetworking.send(player, payload);
+				continue;
+			}
+			for (int i = 0; i < count; i++) {
+				player.networkHandler.sendPacket(new WorldEventS2CPacket(2001, BlockPos.fromLong(positions[i]), rawIds[i], false));
+			}
+		}
+
+		Random random = world.getRandom();
+		world.playSound(null, base, SoundEvents.BLOCK_WOOD_BREAK, SoundCategory.BLOCKS, 1.0F, 0.9F + random.nextFloat() * 0.2F);
+	}
+}
@@ -0,0 +1,89 @@
+package chihalu.automated.tree.harvesting.logic;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.entity.Entity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.loot.context.LootContextParameters;
+import net.minecraft.loot.context.LootWorldContext;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.util.math.random.Random;
+
+final class HarvestLoot {
+	private final ServerWorld world;
+	private final Entity entity;
+	private final ItemStack tool;
+	private final LootWorldContext.Builder builder;
+
+	HarvestLoot(ServerWorld world, Entity entity, ItemStack tool) {
+		this.world = world;
+		this.entity = entity;
+		this.tool = tool.isEmpty() ? ItemStack.EMPTY : tool.copy();
+		this.builder = new LootWorldContext.Builder(world)
+			.add(LootContextParameters.TOOL, this.tool)
+			.addOptional(LootContextParameters.THIS_ENTITY, entity);
+	}
+
+	ItemStack tool() {
+		return tool;
+	}
+
+	List<ItemStack> roll(BlockState state, BlockPos pos) {
+		if (state.hasBlockEntity()) {
+			BlockEntity blockEntity = world.getBlockEntity(pos);
+			return Block.getDroppedStacks(state, world, pos, blockEntity, entity, tool);
+		}
+		builder.add(LootContextParameters.ORIGIN, Vec3d.ofCenter(pos));
+		return state.getDroppedStacks(builder);
+	}
+
+	List<ItemStack> sample(BlockState state, List<BlockPos> positions, int maxRolls) {
+		int rolls = Math.min(positions.size(), Math.max(1, maxRolls));
+		List<ItemStack> prototypes = new ArrayList<>();
+		IntArrayList counts = new IntArrayList();
+		for (int i = 0; i < rolls; i++) {
+			for (ItemStack drop : roll(state, positions.get(i))) {
+				if (!drop.isEmpty()) {
+					accumulate(prototypes, counts, drop);
+				}
+			}
+		}
+
+		double scale = (double) positions.size() / rolls;
+		Random random = world.getRandom();
+		List<ItemStack> result = new ArrayList<>();
+		for (int i = 0; i < prototypes.size(); i++) {
+			double exact = counts.getInt(i) * scale;
+			int total = MathHelper.floor(exact);
+			if (random.nextDouble() < exact - total) {
+				total++;
+			}
+			ItemStack prototype = prototypes.get(i);
+			while (total > 0) {
+				int count = Math.min(total, prototype.getMaxCount());
+				result.add(prototype.copyWithCount(count));
+				total -= count;
+			}
+		}
+		return result;
+	}
+
+	private static void accumulate(List<ItemStack> prototypes, IntArrayList counts, ItemStack drop) {
+		for (int i = 0; i < prototypes.size(); i++) {
+			if (ItemStack.areItemsAndComponentsEqual(prototypes.get(i), drop)) {
+				counts.set(i, counts.getInt(i) + drop.getCount());
+				return;
+			}
+		}
+		prototypes.add(drop.copyWithCount(1));
+		counts.add(drop.getCount());
+	}
+}
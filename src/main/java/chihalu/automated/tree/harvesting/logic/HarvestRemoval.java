@@ -0,0 +1,59 @@
+package chihalu.automated.tree.harvesting.logic;
+
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+
+final class HarvestRemoval {
+	private static final int REMOVAL_FLAGS = Block.NOTIFY_LISTENERS | Block.FORCE_STATE;
+	private static final BlockState AIR = Blocks.AIR.getDefaultState();
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	private final ServerWorld world;
+	private final LongOpenHashSet removed = new LongOpenHashSet();
+
+	HarvestRemoval(ServerWorld world) {
+		this.world = world;
+	}
+
+	void remove(BlockPos pos) {
+		world.setBlockState(pos, AIR, REMOVAL_FLAGS);
+		removed.add(pos.asLong());
+	}
+
+	void finish() {
+		if (removed.isEmpty()) {
+			return;
+		}
+
+		// Blocks were removed without shape or neighbour updates. Only the outer
+		// shell of the cleared volume touches blocks that stay, so leaves inside the
+		// tree never schedule decay ticks and only the shell is updated. Light is
+		// left to the chunk, which queues its own check for every changed block.
+		BlockPos.Mutable pos = new BlockPos.Mutable();
+		for (LongIterator iterator = removed.iterator(); iterator.hasNext();) {
+			long packed = iterator.nextLong();
+			if (!isShell(packed)) {
+				continue;
+			}
+			pos.set(packed);
+			AIR.updateNeighbors(world, pos, Block.NOTIFY_ALL);
+			world.updateNeighbors(pos, Blocks.AIR);
+		}
+		removed.clear();
+	}
+
+	private boolean isShell(long packed) {
+		for (Direction direction : DIRECTIONS) {
+			if (!removed.contains(BlockPos.offset(packed, direction))) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
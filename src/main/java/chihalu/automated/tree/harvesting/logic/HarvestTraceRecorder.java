@@ -0,0 +1,184 @@
+package chihalu.automated.tree.harvesting.logic;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+import chihalu.automated.tree.harvesting.AutomatedTreeHarvesting;
+import chihalu.automated.tree.harvesting.config.HarvestProfile;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.block.BlockState;
+import net.minecraft.entity.decoration.ItemFrameEntity;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtHelper;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtList;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.Vec3d;
+
+public final class HarvestTraceRecorder {
+	static final int FORMAT_VERSION = 2;
+	static final String VERSION_KEY = "Version";
+	static final String PALETTE_KEY = "Palette";
+	static final String TAGS_KEY = "Tags";
+	static final String SCANS_KEY = "Scans";
+	// A finished scan keeps about 12 bytes per distinct block it read, so the cap on
+	// reads bounds the recording to roughly 50 MB of heap however the scans are sized.
+	private static final long MAX_READS = 4_000_000L;
+	private static final DateTimeFormatter FILE_NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+	private static final Executor WRITER = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "Harvest trace writer");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private static Recording current;
+
+	private HarvestTraceRecorder() {
+	}
+
+	private static final class Recording {
+		private final Reference2IntOpenHashMap<BlockState> palette = new Reference2IntOpenHashMap<>();
+		private final List<TraceScan> scans = new ArrayList<>();
+		private final String name;
+		private final int endTick;
+		private long reads;
+
+		private Recording(String name, int endTick) {
+			this.name = name;
+			this.endTick = endTick;
+			this.palette.defaultReturnValue(-1);
+		}
+	}
+
+	public static Path directory() {
+		return FabricLoader.getInstance().getGameDir().resolve(AutomatedTreeHarvesting.MOD_ID + "-traces");
+	}
+
+	public static boolean isRecording() {
+		return current != null;
+	}
+
+	public static boolean start(MinecraftServer server, int durationTicks) {
+		if (current != null) {
+			return false;
+		}
+		current = new Recording("trace-" + LocalDateTime.now().format(FILE_NAME_FORMAT), server.getTicks() + durationTicks);
+		return true;
+	}
+
+	// The file is built and compressed on a background thread. The finished scans are
+	// no longer touched by the server once the recording has been detached here.
+	public static CompletableFuture<Path> stop() {
+		Recording recording = current;
+		current = null;
+		if (recording == null) {
+			return null;
+		}
+		BlockState[] states = new BlockState[recording.palette.size()];
+		for (Reference2IntMap.Entry<BlockState> entry : recording.palette.reference2IntEntrySet()) {
+			states[entry.getIntValue()] = entry.getKey();
+		}
+		NbtCompound tags = TraceTags.capture(states);
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return write(recording, states, tags);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}, WRITER);
+	}
+
+	public static void tick(MinecraftServer server) {
+		Recording recording = current;
+		if (recording == null || (server.getTicks() < recording.endTick && recording.reads < MAX_READS)) {
+			return;
+		}
+		stop().whenComplete((path, error) -> {
+			if (error != null) {
+				AutomatedTreeHarvesting.LOGGER.warn("Failed to write harvest trace {}", recording.name, error);
+			} else {
+				AutomatedTreeHarvesting.LOGGER.info("Harvest trace finished: {} scans written to {}", recording.scans.size(), path);
+			}
+		});
+	}
+
+	// A recording must not follow the JVM into the next world, and the server may be
+	// about to exit, so the trace is written out before the stop completes.
+	public static void onServerStopped(MinecraftServer server) {
+		String name = current != null ? current.name : null;
+		CompletableFuture<Path> pending = stop();
+		if (pending == null) {
+			return;
+		}
+		try {
+			AutomatedTreeHarvesting.LOGGER.info("Harvest trace written to {} on server stop", pending.join());
+		} catch (RuntimeException e) {
+			AutomatedTreeHarvesting.LOGGER.warn("Failed to write harvest trace {}", name, e);
+		}
+	}
+
+	static TraceScan begin(ServerWorld world, ItemFrameEntity frame, HarvestProfile profile) {
+		Recording recording = current;
+		if (recording == null) {
+			return null;
+		}
+		if (!recording.scans.isEmpty()) {
+			recording.reads += recording.scans.getLast().readCount();
+		}
+		if (recording.reads >= MAX_READS) {
+			return null;
+		}
+		TraceScan scan = new TraceScan(
+			recording.palette,
+			world.getRegistryKey().getValue().toString(),
+			frame.getAttachedBlockPos(),
+			new Vec3d(frame.getX(), frame.getY(), frame.getZ()),
+			profile
+		);
+		recording.scans.add(scan);
+		return scan;
+	}
+
+	private static Path write(Recording recording, BlockState[] states, NbtCompound tags) throws IOException {
+		NbtList palette = new NbtList();
+		for (BlockState state : states) {
+			palette.add(NbtHelper.fromBlockState(state));
+		}
+
+		// Each scan is released once it has been converted, so the recording and its
+		// NBT copy are never both held in full.
+		NbtList scans = new NbtList();
+		long reads = 0L;
+		for (int i = 0; i < recording.scans.size(); i++) {
+			TraceScan scan = recording.scans.set(i, null);
+			scans.add(scan.toNbt());
+			reads += scan.readCount();
+		}
+
+		NbtCompound root = new NbtCompound();
+		root.putInt(VERSION_KEY, FORMAT_VERSION);
+		root.put(PALETTE_KEY, palette);
+		root.put(TAGS_KEY, tags);
+		root.put(SCANS_KEY, scans);
+
+		Path directory = directory();
+		Files.createDirectories(directory);
+		Path path = directory.resolve(recording.name + ".nbt");
+		NbtIo.writeCompressed(root, path);
+		AutomatedTreeHarvesting.LOGGER.debug("Harvest trace {} holds {} block reads", recording.name, reads);
+		return path;
+	}
+}
@@ -0,0 +1,61 @@
+package chihalu.automated.tree.harvesting.logic;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import chihalu.automated.tree.harvesting.access.HarvestWorldStateHolder;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.world.ServerWorld;
+
+public final class HarvestWorldState {
+	private static final int MAX_TRACKED_FRAMES = 4096;
+
+	final PendingPlantStorage pendingPlants;
+	final Map<UUID, FrameCostTracker.FrameCost> frameCosts = new LinkedHashMap<>(16, 0.75F, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<UUID, FrameCostTracker.FrameCost> eldest) {
+			return size() > MAX_TRACKED_FRAMES;
+		}
+	};
+	final Long2LongOpenHashMap logChanges = new Long2LongOpenHashMap();
+	final SectionLogCache sectionLogCache = new SectionLogCache();
+	final TickScanCache tickScanCache = new TickScanCache();
+	final Long2ObjectOpenHashMap<AreaController> areaControllers = new Long2ObjectOpenHashMap<>();
+
+	private HarvestWorldState(PendingPlantStorage pendingPlants) {
+		this.pendingPlants = pendingPlants;
+		logChanges.defaultReturnValue(Long.MIN_VALUE);
+	}
+
+	public static void load(ServerWorld world) {
+		HarvestWorldState state = new HarvestWorldState(PendingPlantStorage.get(world));
+		((HarvestWorldStateHolder) world).automated_tree_harvesting$setHarvestState(state);
+	}
+
+	public static void unload(ServerWorld world) {
+		((HarvestWorldStateHolder) world).automated_tree_harvesting$setHarvestState(null);
+	}
+
+	public static void unloadAll(MinecraftServer server) {
+		for (ServerWorld world : server.getWorlds()) {
+			unload(world);
+		}
+	}
+
+	static HarvestWorldState get(ServerWorld world) {
+		HarvestWorldStateHolder holder = (HarvestWorldStateHolder) world;
+		HarvestWorldState state = holder.automated_tree_harvesting$getHarvestState();
+		if (state == null) {
+			load(world);
+			state = holder.automated_tree_harvesting$getHarvestState();
+		}
+		return state;
+	}
+
+	static HarvestWorldState getIfLoaded(ServerWorld world) {
+		return ((HarvestWorldStateHolder) world).automated_tree_harvesting$getHarvestState();
+	}
+}
@@ -3,8 +3,9 @@ package chihalu.automated.tree.harvesting.logic;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -12,13 +13,17 @@ import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.function.BiFunction;
 
+import chihalu.automated.tree.harvesting.profiling.HarvestProfiler;
+import chihalu.automated.tree.harvesting.profiling.StorageSaveEvent;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.DataResult;
 import com.mojang.serialization.Dynamic;
+import com.mojang.serialization.DynamicOps;
 
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.datafixer.DataFixTypes;
+import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.nbt.NbtElement;
 import net.minecraft.nbt.NbtList;
@@ -48,45 +53,71 @@ final class PendingPlantStorage extends PersistentState {
 	);
 	private static final PersistentStateManagerAccess PERSISTENT_STATE_MANAGER_ACCESS = new PersistentStateManagerAccess();
 
-	private final Map<BlockPos, StoredPlantEntry> entries = new HashMap<>();
+	private final PendingPlantStore store;
 
 	private PendingPlantStorage() {
+		this(new PendingPlantStore());
 	}
 
-	private PendingPlantStorage(Map<BlockPos, StoredPlantEntry> entries) {
-		this.entries.putAll(entries);
+	private PendingPlantStorage(PendingPlantStore store) {
+		this.store = store;
 	}
 
 	static PendingPlantStorage get(ServerWorld world) {
 		return PERSISTENT_STATE_MANAGER_ACCESS.get(world);
 	}
 
-	void forEachLoaded(ServerWorld world, EntryConsumer consumer) {
-		for (Iterator<Map.Entry<BlockPos, StoredPlantEntry>> iterator = entries.entrySet().iterator(); iterator.hasNext();) {
-			Map.Entry<BlockPos, StoredPlantEntry> entry = iterator.next();
-			StoredPlantEntry stored = entry.getValue();
-			BlockState saplingState = stored.decodeSaplingState();
-			BlockState belowState = stored.decodeBelowState();
-			if (saplingState == null || belowState == null) {
-				iterator.remove();
-				markDirty();
-				continue;
-			}
-			consumer.accept(entry.getKey(), saplingState, belowState, stored.createdTick());
+	PendingPlantStore store() {
+		return store;
+	}
+
+	void put(BlockPos anchor, BlockState saplingState, BlockState[] belowStates, long createdTick) {
+		if (store.add(anchor.asLong(), saplingState, belowStates, createdTick)) {
+			markDirty();
 		}
 	}
 
-	void put(BlockPos pos, BlockState saplingState, BlockState belowState, long createdTick) {
-		entries.put(pos.toImmutable(), StoredPlantEntry.fromStates(saplingState, belowState, createdTick));
-		markDirty();
+	void clearLegacyHopper(int slot) {
+		if (store.clearLegacyHopper(slot)) {
+			markDirty();
+		}
+	}
+
+	List<ItemStack> buffer(ServerWorld world, BlockPos pos) {
+		List<ItemStack> stacks = new ArrayList<>();
+		NbtList encoded = store.buffer(pos.asLong());
+		if (encoded == null) {
+			return stacks;
+		}
+		DynamicOps<NbtElement> ops = world.getRegistryManager().getOps(NbtOps.INSTANCE);
+		for (NbtElement element : encoded) {
+			ItemStack.CODEC.parse(ops, element).result().ifPresent(stacks::add);
+		}
+		return stacks;
 	}
 
-	void remove(BlockPos pos) {
-		if (entries.remove(pos) != null) {
+	// Stacks that cannot be encoded are dropped at the position rather than lost.
+	void setBuffer(ServerWorld world, BlockPos pos, List<ItemStack> stacks) {
+		DynamicOps<NbtElement> ops = world.getRegistryManager().getOps(NbtOps.INSTANCE);
+		NbtList encoded = new NbtList();
+		for (ItemStack stack : stacks) {
+			Optional<NbtElement> element = ItemStack.CODEC.encodeStart(ops, stack).result();
+			if (element.isPresent()) {
+				encoded.add(element.get());
+			} else {
+				Block.dropStack(world, pos, stack);
+			}
+		}
+		if (store.setBuffer(pos.asLong(), encoded)) {
 			markDirty();
 		}
 	}
 
+	void removeAt(int slot) {
+		store.removeAt(slot);
+		markDirty();
+	}
+
 	public NbtCompound writeNbt(NbtCompound nbt) {
 		NbtCompound compound = toCompound();
 		copyCompound(compound, nbt);
@@ -99,26 +130,35 @@ final class PendingPlantStorage extends PersistentState {
 	}
 
 	private NbtCompound toCompound() {
-		NbtCompound root = new NbtCompound();
-		NbtList list = new NbtList();
-		for (Map.Entry<BlockPos, StoredPlantEntry> entry : entries.entrySet()) {
-			NbtCompound element = entry.getValue().toCompound();
-			element.putLong("Pos", entry.getKey().asLong());
-			list.add(element);
-		}
-		root.put("Entries", list);
-		return root;
+		StorageSaveEvent event = HarvestProfiler.begin("storageSave", new StorageSaveEvent());
+		try {
+			return store.toNbt();
+		} finally {
+			HarvestProfiler.end(event, null, null, store.size());
+		}
 	}
 
 	private static PendingPlantStorage fromCompound(NbtCompound nbt) {
-		if (nbt == null || !nbt.contains("Entries")) {
+		if (nbt == null) {
 			return new PendingPlantStorage();
 		}
-		NbtElement rawList = nbt.get("Entries");
-		if (!(rawList instanceof NbtList list)) {
-			return new PendingPlantStorage();
+		if (PendingPlantStore.isStoreNbt(nbt)) {
+			return new PendingPlantStorage(PendingPlantStore.fromNbt(nbt));
+		}
+		PendingPlantStorage storage = new PendingPlantStorage(readLegacyEntries(nbt));
+		storage.markDirty();
+		return storage;
+	}
+
+	// Data written before the compact store kept one compound per job with block ids
+	// and property maps. It is converted on load and rewritten in the new layout.
+	// Those jobs may still have the temporary hopper under their soil, so they are
+	// flagged for the one-time cleanup.
+	private static PendingPlantStore readLegacyEntries(NbtCompound nbt) {
+		PendingPlantStore store = new PendingPlantStore();
+		if (!(nbt.get("Entries") instanceof NbtList list)) {
+			return store;
 		}
-		Map<BlockPos, StoredPlantEntry> map = new HashMap<>();
 		for (NbtElement element : list) {
 			if (!(element instanceof NbtCompound compound)) {
 				continue;
@@ -127,13 +167,19 @@ final class PendingPlantStorage extends PersistentState {
 			if (optionalPos.isEmpty()) {
 				continue;
 			}
-			BlockPos pos = BlockPos.fromLong(optionalPos.get());
-			StoredPlantEntry stored = StoredPlantEntry.fromCompound(compound);
-			if (stored != null) {
-				map.put(pos, stored);
+			LegacyEntry entry = LegacyEntry.fromCompound(compound);
+			if (entry == null) {
+				continue;
+			}
+			BlockState saplingState = entry.decodeSaplingState();
+			BlockState[] belowStates = entry.decodeBelowStates();
+			if (saplingState != null && belowStates != null) {
+				store.add(optionalPos.get(), saplingState, belowStates, entry.createdTick());
+				store.markLegacyHopper(optionalPos.get());
 			}
 		}
-		return new PendingPlantStorage(map);
+		store.sortByCreation();
+		return store;
 	}
 
 	private static void copyCompound(NbtCompound source, NbtCompound target) {
@@ -146,48 +192,40 @@ final class PendingPlantStorage extends PersistentState {
 		}
 	}
 
-	interface EntryConsumer {
-		void accept(BlockPos pos, BlockState saplingState, BlockState belowState, long createdTick);
-	}
-
-	private static final class StoredPlantEntry {
+	private static final class LegacyEntry {
 		private static final String SAPLING_ID_KEY = "SaplingId";
 		private static final String SAPLING_PROPS_KEY = "SaplingProps";
 		private static final String BELOW_ID_KEY = "BelowId";
 		private static final String BELOW_PROPS_KEY = "BelowProps";
+		private static final String EXTRA_BELOW_KEY = "ExtraBelow";
+		private static final String ID_KEY = "Id";
+		private static final String PROPS_KEY = "Props";
 		private static final String CREATED_TICK_KEY = "CreatedTick";
 
 		private final Identifier saplingId;
 		private final Map<String, String> saplingProperties;
 		private final Identifier belowId;
 		private final Map<String, String> belowProperties;
+		private final List<StoredState> extraBelow;
 		private final long createdTick;
 
-		private StoredPlantEntry(
+		private LegacyEntry(
 			Identifier saplingId,
 			Map<String, String> saplingProperties,
 			Identifier belowId,
 			Map<String, String> belowProperties,
+			List<StoredState> extraBelow,
 			long createdTick
 		) {
 			this.saplingId = saplingId;
 			this.saplingProperties = Map.copyOf(saplingProperties);
 			this.belowId = belowId;
 			this.belowProperties = Map.copyOf(belowProperties);
+			this.extraBelow = List.copyOf(extraBelow);
 			this.createdTick = createdTick;
 		}
 
-		static StoredPlantEntry fromStates(BlockState saplingState, BlockState belowState, long createdTick) {
-			return new StoredPlantEntry(
-				Registries.BLOCK.getId(saplingState.getBlock()),
-				encodeProperties(saplingState),
-				Registries.BLOCK.getId(belowState.getBlock()),
-				encodeProperties(belowState),
-				createdTick
-			);
-		}
-
-		static StoredPlantEntry fromCompound(NbtCompound compound) {
+		static LegacyEntry fromCompound(NbtCompound compound) {
 			Optional<String> saplingIdRaw = NbtBridge.getString(compound, SAPLING_ID_KEY);
 			Optional<String> belowIdRaw = NbtBridge.getString(compound, BELOW_ID_KEY);
 			if (saplingIdRaw.isEmpty() || belowIdRaw.isEmpty()) {
@@ -200,42 +238,51 @@ final class PendingPlantStorage extends PersistentState {
 			}
 			Map<String, String> saplingProperties = decodeProperties(NbtBridge.getCompoundOrEmpty(compound, SAPLING_PROPS_KEY));
 			Map<String, String> belowProperties = decodeProperties(NbtBridge.getCompoundOrEmpty(compound, BELOW_PROPS_KEY));
+			List<StoredState> extraBelow = new ArrayList<>();
+			if (compound.get(EXTRA_BELOW_KEY) instanceof NbtList list) {
+				for (NbtElement element : list) {
+					if (!(element instanceof NbtCompound extra)) {
+						return null;
+					}
+					Optional<String> extraIdRaw = NbtBridge.getString(extra, ID_KEY);
+					Identifier extraId = extraIdRaw.map(Identifier::tryParse).orElse(null);
+					if (extraId == null) {
+						return null;
+					}
+					extraBelow.add(new StoredState(extraId, decodeProperties(NbtBridge.getCompoundOrEmpty(extra, PROPS_KEY))));
+				}
+			}
+			if (!extraBelow.isEmpty() && extraBelow.size() != 3) {
+				return null;
+			}
 			long createdTick = NbtBridge.getLong(compound, CREATED_TICK_KEY).orElse(0L);
-			return new StoredPlantEntry(saplingId, saplingProperties, belowId, belowProperties, createdTick);
-		}
-
-		NbtCompound toCompound() {
-			NbtCompound compound = new NbtCompound();
-			compound.putString(SAPLING_ID_KEY, saplingId.toString());
-			compound.put(SAPLING_PROPS_KEY, encodePropertiesNbt(saplingProperties));
-			compound.putString(BELOW_ID_KEY, belowId.toString());
-			compound.put(BELOW_PROPS_KEY, encodePropertiesNbt(belowProperties));
-			compound.putLong(CREATED_TICK_KEY, createdTick);
-			return compound;
+			return new LegacyEntry(saplingId, saplingProperties, belowId, belowProperties, extraBelow, createdTick);
 		}
 
 		BlockState decodeSaplingState() {
 			return decodeState(saplingId, saplingProperties);
 		}
 
-		BlockState decodeBelowState() {
-			return decodeState(belowId, belowProperties);
+		BlockState[] decodeBelowStates() {
+			BlockState[] states = new BlockState[1 + extraBelow.size()];
+			states[0] = decodeState(belowId, belowProperties);
+			if (states[0] == null) {
+				return null;
+			}
+			for (int i = 0; i < extraBelow.size(); i++) {
+				StoredState extra = extraBelow.get(i);
+				states[i + 1] = decodeState(extra.id(), extra.properties());
+				if (states[i + 1] == null) {
+					return null;
+				}
+			}
+			return states;
 		}
 
 		long createdTick() {
 			return createdTick;
 		}
 
-		@SuppressWarnings({ "rawtypes", "unchecked" })
-		private static Map<String, String> encodeProperties(BlockState state) {
-			Map<String, String> values = new HashMap<>();
-			for (Map.Entry<Property<?>, Comparable<?>> entry : state.getEntries().entrySet()) {
-				Property property = entry.getKey();
-				values.put(property.getName(), property.name(entry.getValue()));
-			}
-			return values;
-		}
-
 		private static Map<String, String> decodeProperties(NbtCompound compound) {
 			if (compound == null || compound.isEmpty()) {
 				return Map.of();
@@ -247,12 +294,6 @@ final class PendingPlantStorage extends PersistentState {
 			return map;
 		}
 
-		private static NbtCompound encodePropertiesNbt(Map<String, String> properties) {
-			NbtCompound compound = new NbtCompound();
-			properties.forEach(compound::putString);
-			return compound;
-		}
-
 		private static BlockState decodeState(Identifier blockId, Map<String, String> properties) {
 			Block block = Registries.BLOCK.get(blockId);
 			if (!Registries.BLOCK.getId(block).equals(blockId)) {
@@ -279,6 +320,9 @@ final class PendingPlantStorage extends PersistentState {
 			Property<T> typed = (Property<T>) property;
 			return state.with(typed, (T) value);
 		}
+
+		private record StoredState(Identifier id, Map<String, String> properties) {
+		}
 	}
 
 	private static final class PersistentStateManagerAccess {
@@ -0,0 +1,305 @@
+package chihalu.automated.tree.harvesting.logic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.minecraft.block.BlockState;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtHelper;
+import net.minecraft.nbt.NbtIntArray;
+import net.minecraft.nbt.NbtList;
+import net.minecraft.nbt.NbtLong;
+import net.minecraft.nbt.NbtLongArray;
+import net.minecraft.registry.Registries;
+import net.minecraft.util.math.BlockPos;
+
+final class PendingPlantStore {
+	private static final int NONE = -1;
+	private static final int BELOW_STRIDE = 4;
+	private static final int INITIAL_CAPACITY = 16;
+	private static final String PALETTE_KEY = "Palette";
+	private static final String ANCHORS_KEY = "Anchors";
+	private static final String SAPLINGS_KEY = "Saplings";
+	private static final String BELOW_KEY = "Below";
+	private static final String CREATED_TICKS_KEY = "CreatedTicks";
+	private static final String LEGACY_HOPPERS_KEY = "LegacyHoppers";
+	private static final String BUFFERS_KEY = "Buffers";
+	private static final String BUFFER_POS_KEY = "Pos";
+	private static final String BUFFER_ITEMS_KEY = "Items";
+
+	// One slot per job, packed into parallel arrays. Block states are interned into a
+	// palette so a slot only holds indices. Single-position jobs leave the last three
+	// below entries at NONE. Removal swaps the last slot into the freed one.
+	private final Reference2IntOpenHashMap<BlockState> paletteIndex = new Reference2IntOpenHashMap<>();
+	private final List<BlockState> palette = new ArrayList<>();
+	private final Long2IntOpenHashMap slots = new Long2IntOpenHashMap();
+	// Anchors of jobs scheduled by versions that still swapped the soil for a hopper.
+	private final LongOpenHashSet legacyHoppers = new LongOpenHashSet();
+	// Items a job has taken off its soil but not yet pushed into the inventory below,
+	// keyed by footprint position. Stacks stay encoded because encoding them needs the
+	// world's registries, which saving does not have.
+	private final Long2ObjectOpenHashMap<NbtList> buffers = new Long2ObjectOpenHashMap<>();
+	private long[] anchors = new long[INITIAL_CAPACITY];
+	private int[] saplings = new int[INITIAL_CAPACITY];
+	private int[] belows = new int[INITIAL_CAPACITY * BELOW_STRIDE];
+	private long[] createdTicks = new long[INITIAL_CAPACITY];
+	private int size;
+
+	PendingPlantStore() {
+		paletteIndex.defaultReturnValue(NONE);
+		slots.defaultReturnValue(NONE);
+	}
+
+	static boolean isStoreNbt(NbtCompound nbt) {
+		return nbt.get(ANCHORS_KEY) instanceof NbtLongArray;
+	}
+
+	int size() {
+		return size;
+	}
+
+	long anchor(int slot) {
+		return anchors[slot];
+	}
+
+	BlockState sapling(int slot) {
+		return palette.get(saplings[slot]);
+	}
+
+	int footprint(int slot) {
+		return belows[slot * BELOW_STRIDE + 1] == NONE ? 1 : 2;
+	}
+
+	BlockState below(int slot, int index) {
+		return palette.get(belows[slot * BELOW_STRIDE + index]);
+	}
+
+	long createdTick(int slot) {
+		return createdTicks[slot];
+	}
+
+	boolean hasLegacyHopper(int slot) {
+		return !legacyHoppers.isEmpty() && legacyHoppers.contains(anchors[slot]);
+	}
+
+	void markLegacyHopper(long anchor) {
+		if (slots.containsKey(anchor)) {
+			legacyHoppers.add(anchor);
+		}
+	}
+
+	boolean clearLegacyHopper(int slot) {
+		return legacyHoppers.remove(anchors[slot]);
+	}
+
+	NbtList buffer(long pos) {
+		return buffers.get(pos);
+	}
+
+	boolean setBuffer(long pos, NbtList stacks) {
+		if (stacks == null || stacks.isEmpty()) {
+			return buffers.remove(pos) != null;
+		}
+		buffers.put(pos, stacks);
+		return true;
+	}
+
+	int footprintAt(long anchor) {
+		int slot = slots.get(anchor);
+		return slot == NONE ? 0 : footprint(slot);
+	}
+
+	boolean add(long anchor, BlockState sapling, BlockState[] belowStates, long createdTick) {
+		if (slots.containsKey(anchor)) {
+			return false;
+		}
+		if (size == anchors.length) {
+			int capacity = size + (size >> 1);
+			anchors = Arrays.copyOf(anchors, capacity);
+			saplings = Arrays.copyOf(saplings, capacity);
+			belows = Arrays.copyOf(belows, capacity * BELOW_STRIDE);
+			createdTicks = Arrays.copyOf(createdTicks, capacity);
+		}
+
+		int slot = size++;
+		anchors[slot] = anchor;
+		saplings[slot] = intern(sapling);
+		for (int i = 0; i < BELOW_STRIDE; i++) {
+			belows[slot * BELOW_STRIDE + i] = i < belowStates.length ? intern(belowStates[i]) : NONE;
+		}
+		createdTicks[slot] = createdTick;
+		slots.put(anchor, slot);
+		return true;
+	}
+
+	void removeAt(int slot) {
+		slots.remove(anchors[slot]);
+		legacyHoppers.remove(anchors[slot]);
+		if (!buffers.isEmpty()) {
+			for (long pos : footprint(anchors[slot], footprint(slot))) {
+				buffers.remove(pos);
+			}
+		}
+		int last = --size;
+		if (slot != last) {
+			anchors[slot] = anchors[last];
+			saplings[slot] = saplings[last];
+			System.arraycopy(belows, last * BELOW_STRIDE, belows, slot * BELOW_STRIDE, BELOW_STRIDE);
+			createdTicks[slot] = createdTicks[last];
+			slots.put(anchors[slot], slot);
+		}
+	}
+
+	// Loaded jobs are ordered by creation tick, then position, so every load of the
+	// same data ticks them in the same order. Removal may reorder them afterwards.
+	void sortByCreation() {
+		int[] order = new int[size];
+		for (int slot = 0; slot < size; slot++) {
+			order[slot] = slot;
+		}
+		IntArrays.quickSort(order, (a, b) -> {
+			int byTick = Long.compare(createdTicks[a], createdTicks[b]);
+			return byTick != 0 ? byTick : Long.compare(anchors[a], anchors[b]);
+		});
+
+		long[] sortedAnchors = new long[anchors.length];
+		int[] sortedSaplings = new int[saplings.length];
+		int[] sortedBelows = new int[belows.length];
+		long[] sortedTicks = new long[createdTicks.length];
+		for (int slot = 0; slot < size; slot++) {
+			int from = order[slot];
+			sortedAnchors[slot] = anchors[from];
+			sortedSaplings[slot] = saplings[from];
+			System.arraycopy(belows, from * BELOW_STRIDE, sortedBelows, slot * BELOW_STRIDE, BELOW_STRIDE);
+			sortedTicks[slot] = createdTicks[from];
+			slots.put(sortedAnchors[slot], slot);
+		}
+		anchors = sortedAnchors;
+		saplings = sortedSaplings;
+		belows = sortedBelows;
+		createdTicks = sortedTicks;
+	}
+
+	private static long[] footprint(long anchor, int footprint) {
+		if (footprint == 1) {
+			return new long[] { anchor };
+		}
+		return new long[] { anchor, BlockPos.add(anchor, 1, 0, 0), BlockPos.add(anchor, 0, 0, 1), BlockPos.add(anchor, 1, 0, 1) };
+	}
+
+	private int intern(BlockState state) {
+		int index = paletteIndex.getInt(state);
+		if (index == NONE) {
+			index = palette.size();
+			palette.add(state);
+			paletteIndex.put(state, index);
+		}
+		return index;
+	}
+
+	NbtCompound toNbt() {
+		NbtList paletteList = new NbtList();
+		for (BlockState state : palette) {
+			paletteList.add(NbtHelper.fromBlockState(state));
+		}
+		NbtCompound nbt = new NbtCompound();
+		nbt.put(PALETTE_KEY, paletteList);
+		nbt.put(ANCHORS_KEY, new NbtLongArray(Arrays.copyOf(anchors, size)));
+		nbt.put(SAPLINGS_KEY, new NbtIntArray(Arrays.copyOf(saplings, size)));
+		nbt.put(BELOW_KEY, new NbtIntArray(Arrays.copyOf(belows, size * BELOW_STRIDE)));
+		nbt.put(CREATED_TICKS_KEY, new NbtLongArray(Arrays.copyOf(createdTicks, size)));
+		if (!legacyHoppers.isEmpty()) {
+			nbt.put(LEGACY_HOPPERS_KEY, new NbtLongArray(legacyHoppers.toLongArray()));
+		}
+		if (!buffers.isEmpty()) {
+			NbtList bufferList = new NbtList();
+			for (Long2ObjectMap.Entry<NbtList> entry : buffers.long2ObjectEntrySet()) {
+				NbtCompound buffer = new NbtCompound();
+				buffer.putLong(BUFFER_POS_KEY, entry.getLongKey());
+				buffer.put(BUFFER_ITEMS_KEY, entry.getValue());
+				bufferList.add(buffer);
+			}
+			nbt.put(BUFFERS_KEY, bufferList);
+		}
+		return nbt;
+	}
+
+	// Entries whose blocks no longer exist decode to air and are dropped, as are
+	// entries with out of range palette indices.
+	static PendingPlantStore fromNbt(NbtCompound nbt) {
+		PendingPlantStore store = new PendingPlantStore();
+		if (!(nbt.get(PALETTE_KEY) instanceof NbtList paletteList)
+			|| !(nbt.get(ANCHORS_KEY) instanceof NbtLongArray anchorArray)
+			|| !(nbt.get(SAPLINGS_KEY) instanceof NbtIntArray saplingArray)
+			|| !(nbt.get(BELOW_KEY) instanceof NbtIntArray belowArray)
+			|| !(nbt.get(CREATED_TICKS_KEY) instanceof NbtLongArray createdArray)) {
+			return store;
+		}
+
+		BlockState[] states = new BlockState[paletteList.size()];
+		for (int i = 0; i < states.length; i++) {
+			NbtElement element = paletteList.get(i);
+			BlockState state = element instanceof NbtCompound compound ? NbtHelper.toBlockState(Registries.BLOCK, compound) : null;
+			states[i] = state == null || state.isAir() ? null : state;
+		}
+
+		long[] anchors = anchorArray.getLongArray();
+		int[] saplings = saplingArray.getIntArray();
+		int[] belows = belowArray.getIntArray();
+		long[] createdTicks = createdArray.getLongArray();
+		int count = Math.min(Math.min(anchors.length, saplings.length), Math.min(belows.length / BELOW_STRIDE, createdTicks.length));
+		for (int slot = 0; slot < count; slot++) {
+			BlockState sapling = lookup(states, saplings[slot]);
+			int belowCount = belows[slot * BELOW_STRIDE + 1] == NONE ? 1 : BELOW_STRIDE;
+			BlockState[] belowStates = new BlockState[belowCount];
+			boolean valid = sapling != null;
+			for (int i = 0; i < belowCount && valid; i++) {
+				belowStates[i] = lookup(states, belows[slot * BELOW_STRIDE + i]);
+				valid = belowStates[i] != null;
+			}
+			if (valid) {
+				store.add(anchors[slot], sapling, belowStates, createdTicks[slot]);
+			}
+		}
+		if (nbt.get(LEGACY_HOPPERS_KEY) instanceof NbtLongArray legacyArray) {
+			for (long anchor : legacyArray.getLongArray()) {
+				store.markLegacyHopper(anchor);
+			}
+		}
+		if (nbt.get(BUFFERS_KEY) instanceof NbtList bufferList) {
+			store.readBuffers(bufferList);
+		}
+		store.sortByCreation();
+		return store;
+	}
+
+	// Buffers are only kept for positions of jobs that survived loading, so items of a
+	// dropped job cannot linger in the map.
+	private void readBuffers(NbtList bufferList) {
+		Long2ObjectOpenHashMap<NbtList> saved = new Long2ObjectOpenHashMap<>();
+		for (NbtElement element : bufferList) {
+			if (element instanceof NbtCompound buffer
+				&& buffer.get(BUFFER_POS_KEY) instanceof NbtLong pos
+				&& buffer.get(BUFFER_ITEMS_KEY) instanceof NbtList items) {
+				saved.put(pos.longValue(), items);
+			}
+		}
+		for (int slot = 0; slot < size && !saved.isEmpty(); slot++) {
+			for (long pos : footprint(anchors[slot], footprint(slot))) {
+				setBuffer(pos, saved.remove(pos));
+			}
+		}
+	}
+
+	private static BlockState lookup(BlockState[] states, int index) {
+		return index >= 0 && index < states.length ? states[index] : null;
+	}
+}
@@ -0,0 +1,109 @@
+package chihalu.automated.tree.harvesting.logic;
+
+import chihalu.automated.tree.harvesting.species.TreeSpecies;
+import chihalu.automated.tree.harvesting.species.TreeSpeciesManager;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.registry.tag.TagKey;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.chunk.WorldChunk;
+
+final class ScanView {
+	private static final BlockState AIR = Blocks.AIR.getDefaultState();
+
+	private final ServerWorld world;
+	private final TraceScan trace;
+	private final Long2ObjectMap<BlockState> replayStates;
+	private final boolean replayMayContainLogs;
+	private final TraceTags replayTags;
+	private long cachedChunkPos = ChunkPos.MARKER;
+	private WorldChunk cachedChunk;
+	private boolean clipped;
+
+	ScanView(ServerWorld world) {
+		this(world, null, null, true, null);
+	}
+
+	private ScanView(
+		ServerWorld world,
+		TraceScan trace,
+		Long2ObjectMap<BlockState> replayStates,
+		boolean replayMayContainLogs,
+		TraceTags replayTags
+	) {
+		this.world = world;
+		this.trace = trace;
+		this.replayStates = replayStates;
+		this.replayMayContainLogs = replayMayContainLogs;
+		this.replayTags = replayTags;
+	}
+
+	static ScanView recording(ServerWorld world, TraceScan trace) {
+		return new ScanView(world, trace, null, true, null);
+	}
+
+	static ScanView replaying(Long2ObjectMap<BlockState> states, boolean mayContainLogs, TraceTags tags) {
+		return new ScanView(null, null, states, mayContainLogs, tags);
+	}
+
+	boolean isIn(BlockState state, TagKey<Block> tag) {
+		return replayTags != null ? replayTags.isIn(state, tag) : state.isIn(tag);
+	}
+
+	TreeSpecies species(BlockState state) {
+		return replayTags != null ? replayTags.species(state) : TreeSpeciesManager.get(state);
+	}
+
+	BlockState getBlockState(BlockPos pos) {
+		if (replayStates != null) {
+			BlockState state = replayStates.get(pos.asLong());
+			return state != null ? state : AIR;
+		}
+
+		int chunkX = ChunkSectionPos.getSectionCoord(pos.getX());
+		int chunkZ = ChunkSectionPos.getSectionCoord(pos.getZ());
+		long chunkPos = ChunkPos.toLong(chunkX, chunkZ);
+		if (chunkPos != cachedChunkPos) {
+			cachedChunk = world.getChunkManager().getWorldChunk(chunkX, chunkZ);
+			cachedChunkPos = chunkPos;
+		}
+		BlockState state;
+		if (cachedChunk == null) {
+			clipped = true;
+			state = AIR;
+		} else {
+			state = cachedChunk.getBlockState(pos);
+		}
+		if (trace != null) {
+			trace.read(pos, state);
+		}
+		return state;
+	}
+
+	boolean mayContainLogs(BlockPos min, BlockPos max) {
+		if (replayStates != null) {
+			return replayMayContainLogs;
+		}
+		boolean result = SectionLogCache.mayContainLogs(world, min.getX(), min.getY(), min.getZ(), max.getX(), max.getY(), max.getZ());
+		if (trace != null && !result) {
+			trace.markNoLogs();
+		}
+		return result;
+	}
+
+	boolean isClipped() {
+		return clipped;
+	}
+
+	static boolean isLoaded(ServerWorld world, BlockPos pos) {
+		return world.getChunkManager().isChunkLoaded(
+			ChunkSectionPos.getSectionCoord(pos.getX()),
+			ChunkSectionPos.getSectionCoord(pos.getZ())
+		);
+	}
+}
@@ -0,0 +1,71 @@
+package chihalu.automated.tree.harvesting.logic;
+
+import java.util.function.Predicate;
+
+import it.unimi.dsi.fastutil.longs.Long2ByteOpenHashMap;
+import net.minecraft.block.BlockState;
+import net.minecraft.registry.tag.BlockTags;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.WorldChunk;
+
+final class SectionLogCache {
+	private static final byte UNKNOWN = 0;
+	private static final byte NO_LOGS = 1;
+	private static final byte MAY_HAVE_LOGS = 2;
+	private static final Predicate<BlockState> IS_LOG = state -> state.isIn(BlockTags.LOGS);
+
+	private final Long2ByteOpenHashMap sections = new Long2ByteOpenHashMap();
+	private long cachedTick = Long.MIN_VALUE;
+
+	SectionLogCache() {
+	}
+
+	static boolean mayContainLogs(ServerWorld world, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+		SectionLogCache cache = HarvestWorldState.get(world).sectionLogCache;
+		long time = world.getTime();
+		if (cache.cachedTick != time) {
+			cache.sections.clear();
+			cache.cachedTick = time;
+		}
+
+		int minSectionY = Math.max(ChunkSectionPos.getSectionCoord(minY), world.getBottomSectionCoord());
+		int maxSectionY = ChunkSectionPos.getSectionCoord(maxY);
+		for (int chunkX = ChunkSectionPos.getSectionCoord(minX); chunkX <= ChunkSectionPos.getSectionCoord(maxX); chunkX++) {
+			for (int chunkZ = ChunkSectionPos.getSectionCoord(minZ); chunkZ <= ChunkSectionPos.getSectionCoord(maxZ); chunkZ++) {
+				for (int sectionY = minSectionY; sectionY <= maxSectionY; sectionY++) {
+					if (cache.sectionMayContainLogs(world, chunkX, sectionY, chunkZ)) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	private boolean sectionMayContainLogs(ServerWorld world, int chunkX, int sectionY, int chunkZ) {
+		long key = ChunkSectionPos.asLong(chunkX, sectionY, chunkZ);
+		byte cached = sections.get(key);
+		if (cached != UNKNOWN) {
+			return cached == MAY_HAVE_LOGS;
+		}
+
+		byte result = MAY_HAVE_LOGS;
+		WorldChunk chunk = world.getChunkManager().getWorldChunk(chunkX, chunkZ);
+		if (chunk != null) {
+			int index = world.sectionCoordToIndex(sectionY);
+			ChunkSection[] sectionArray = chunk.getSectionArray();
+			if (index < 0 || index >= sectionArray.length) {
+				result = NO_LOGS;
+			} else {
+				ChunkSection section = sectionArray[index];
+				if (section.isEmpty() || !section.hasAny(IS_LOG)) {
+					result = NO_LOGS;
+				}
+			}
+		}
+		sections.put(key, result);
+		return result == MAY_HAVE_LOGS;
+	}
+}
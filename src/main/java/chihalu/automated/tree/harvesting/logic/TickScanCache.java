@@ -0,0 +1,53 @@
+package chihalu.automated.tree.harvesting.logic;
+
+import java.util.Set;
+
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+
+final class TickScanCache {
+	private final LongOpenHashSet harvestedLogs = new LongOpenHashSet();
+	private final LongOpenHashSet claimedBases = new LongOpenHashSet();
+	private long cachedTick = Long.MIN_VALUE;
+
+	TickScanCache() {
+	}
+
+	boolean touchesHarvestedTree(long time, BlockPos support) {
+		sync(time);
+		if (harvestedLogs.isEmpty()) {
+			return false;
+		}
+		for (Direction direction : Direction.Type.HORIZONTAL) {
+			int x = support.getX() + direction.getOffsetX();
+			int z = support.getZ() + direction.getOffsetZ();
+			for (int dy = -1; dy <= 2; dy++) {
+				if (harvestedLogs.contains(BlockPos.asLong(x, support.getY() + dy, z))) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	boolean claim(long time, BlockPos base) {
+		sync(time);
+		return claimedBases.add(base.asLong());
+	}
+
+	void markHarvested(long time, Set<BlockPos> logs) {
+		sync(time);
+		for (BlockPos pos : logs) {
+			harvestedLogs.add(pos.asLong());
+		}
+	}
+
+	private void sync(long time) {
+		if (cachedTick != time) {
+			harvestedLogs.clear();
+			claimedBases.clear();
+			cachedTick = time;
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package chihalu.automated.tree.harvesting.logic;
+
+import chihalu.automated.tree.harvesting.config.HarvestProfile;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.minecraft.block.BlockState;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtIntArray;
+import net.minecraft.nbt.NbtLongArray;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+
+final class TraceScan {
+	// Scalars are packed into one long array: support position, the frame position as
+	// raw double bits, whether the section pre-check ruled the area out, and the
+	// number of blocks the harvest took, or one of the outcomes below.
+	static final int NO_TREE = -1;
+	static final int NOT_HARVESTED = -2;
+	static final String DIMENSION_KEY = "Dimension";
+	static final String HEADER_KEY = "Header";
+	static final String PROFILE_KEY = "Profile";
+	static final String POSITIONS_KEY = "Positions";
+	static final String STATES_KEY = "States";
+
+	private final Reference2IntOpenHashMap<BlockState> palette;
+	private final String dimension;
+	private final BlockPos support;
+	private final Vec3d framePos;
+	private final HarvestProfile profile;
+	private LongOpenHashSet seen = new LongOpenHashSet();
+	private final LongArrayList positions = new LongArrayList();
+	private final IntArrayList states = new IntArrayList();
+	private boolean noLogs;
+	private int blocks = NO_TREE;
+
+	TraceScan(Reference2IntOpenHashMap<BlockState> palette, String dimension, BlockPos support, Vec3d framePos, HarvestProfile profile) {
+		this.palette = palette;
+		this.dimension = dimension;
+		this.support = support;
+		this.framePos = framePos;
+		this.profile = profile;
+	}
+
+	void read(BlockPos pos, BlockState state) {
+		long packed = pos.asLong();
+		if (seen == null || !seen.add(packed)) {
+			return;
+		}
+		int index = palette.getInt(state);
+		if (index < 0) {
+			index = palette.size();
+			palette.put(state, index);
+		}
+		positions.add(packed);
+		states.add(index);
+	}
+
+	void markNoLogs() {
+		noLogs = true;
+	}
+
+	// The set only de-duplicates reads while the scan runs, so it is dropped here and
+	// the finished scan keeps nothing but its two packed arrays.
+	void complete(int blocks) {
+		this.blocks = blocks;
+		seen = null;
+		positions.trim();
+		states.trim();
+	}
+
+	int readCount() {
+		return positions.size();
+	}
+
+	NbtCompound toNbt() {
+		NbtCompound compound = new NbtCompound();
+		compound.putString(DIMENSION_KEY, dimension);
+		compound.put(HEADER_KEY, new NbtLongArray(new long[] {
+			support.asLong(),
+			Double.doubleToLongBits(framePos.x),
+			Double.doubleToLongBits(framePos.y),
+			Double.doubleToLongBits(framePos.z),
+			noLogs ? 1L : 0L,
+			blocks
+		}));
+		compound.put(PROFILE_KEY, new NbtIntArray(new int[] {
+			profile.maxLogs(),
+			profile.maxLeaves(),
+			profile.horizontalRadius(),
+			profile.verticalBelow(),
+			profile.verticalAbove()
+		}));
+		compound.put(POSITIONS_KEY, new NbtLongArray(positions.toLongArray()));
+		compound.put(STATES_KEY, new NbtIntArray(states.toIntArray()));
+		return compound;
+	}
+}
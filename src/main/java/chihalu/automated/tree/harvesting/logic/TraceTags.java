@@ -0,0 +1,141 @@
+package chihalu.automated.tree.harvesting.logic;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import chihalu.automated.tree.harvesting.AutomatedTreeHarvesting;
+import chihalu.automated.tree.harvesting.species.TreeSpecies;
+import chihalu.automated.tree.harvesting.species.TreeSpeciesManager;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2LongOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtIntArray;
+import net.minecraft.nbt.NbtLongArray;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.registry.tag.BlockTags;
+import net.minecraft.registry.tag.TagKey;
+import net.minecraft.util.Identifier;
+
+final class TraceTags {
+	// Tags and tree species only exist on a running server, so a trace carries the
+	// answers the scan needs for each palette state: one bit per tag the scan asks
+	// about, and the species its logs belong to. Bit 0 is the log tag and bit 1 the
+	// default leaf tag; further bits are species leaf tags.
+	private static final String MASKS_KEY = "Masks";
+	private static final String SPECIES_KEY = "Species";
+	private static final String SPECIES_INDICES_KEY = "SpeciesIndices";
+	private static final int LOGS_BIT = 0;
+	private static final int LEAVES_BIT = 1;
+	private static final int MAX_TAGS = Long.SIZE;
+	private static final int SPECIES_STRIDE = 4;
+
+	private final Object2IntOpenHashMap<TagKey<Block>> bits = new Object2IntOpenHashMap<>();
+	private final Reference2LongOpenHashMap<BlockState> masks = new Reference2LongOpenHashMap<>();
+	private final Reference2ObjectOpenHashMap<BlockState, TreeSpecies> species = new Reference2ObjectOpenHashMap<>();
+
+	private TraceTags() {
+		bits.defaultReturnValue(-1);
+	}
+
+	boolean isIn(BlockState state, TagKey<Block> tag) {
+		int bit = bits.getInt(tag);
+		return bit >= 0 && (masks.getLong(state) & 1L << bit) != 0L;
+	}
+
+	TreeSpecies species(BlockState state) {
+		return species.get(state);
+	}
+
+	// Runs on the server thread while the tags the trace was recorded with are bound.
+	static NbtCompound capture(BlockState[] palette) {
+		List<TreeSpecies> definitions = TreeSpeciesManager.definitions();
+		List<TagKey<Block>> tags = new ArrayList<>(List.of(BlockTags.LOGS, BlockTags.LEAVES));
+		Reference2IntOpenHashMap<TreeSpecies> speciesIndices = new Reference2IntOpenHashMap<>();
+		speciesIndices.defaultReturnValue(-1);
+		int[] speciesData = new int[definitions.size() * SPECIES_STRIDE];
+		for (int i = 0; i < definitions.size(); i++) {
+			TreeSpecies entry = definitions.get(i);
+			int bit = tags.indexOf(entry.leaves());
+			if (bit < 0 && tags.size() < MAX_TAGS) {
+				bit = tags.size();
+				tags.add(entry.leaves());
+			} else if (bit < 0) {
+				AutomatedTreeHarvesting.LOGGER.warn("Harvest trace cannot record the leaf tag of tree species {}", entry.id());
+			}
+			speciesIndices.put(entry, i);
+			speciesData[i * SPECIES_STRIDE] = bit;
+			speciesData[i * SPECIES_STRIDE + 1] = entry.footprint();
+			speciesData[i * SPECIES_STRIDE + 2] = entry.horizontalRadius();
+			speciesData[i * SPECIES_STRIDE + 3] = entry.verticalAbove();
+		}
+
+		long[] masks = new long[palette.length];
+		int[] indices = new int[palette.length];
+		for (int i = 0; i < palette.length; i++) {
+			for (int bit = 0; bit < tags.size(); bit++) {
+				if (palette[i].isIn(tags.get(bit))) {
+					masks[i] |= 1L << bit;
+				}
+			}
+			TreeSpecies entry = TreeSpeciesManager.get(palette[i]);
+			indices[i] = entry != null ? speciesIndices.getInt(entry) : -1;
+		}
+
+		NbtCompound nbt = new NbtCompound();
+		nbt.put(MASKS_KEY, new NbtLongArray(masks));
+		nbt.put(SPECIES_KEY, new NbtIntArray(speciesData));
+		nbt.put(SPECIES_INDICES_KEY, new NbtIntArray(indices));
+		return nbt;
+	}
+
+	static TraceTags read(NbtCompound nbt, BlockState[] palette) throws IOException {
+		if (!(nbt.get(MASKS_KEY) instanceof NbtLongArray maskArray)
+			|| !(nbt.get(SPECIES_KEY) instanceof NbtIntArray speciesArray)
+			|| !(nbt.get(SPECIES_INDICES_KEY) instanceof NbtIntArray indexArray)) {
+			throw new IOException("Malformed tag snapshot");
+		}
+		long[] masks = maskArray.getLongArray();
+		int[] speciesData = speciesArray.getIntArray();
+		int[] indices = indexArray.getIntArray();
+		if (masks.length != palette.length || indices.length != palette.length || speciesData.length % SPECIES_STRIDE != 0) {
+			throw new IOException("Malformed tag snapshot");
+		}
+
+		// Recorded tags are only known by bit, so species leaf tags get stand-in keys.
+		TraceTags tags = new TraceTags();
+		tags.bits.put(BlockTags.LOGS, LOGS_BIT);
+		tags.bits.put(BlockTags.LEAVES, LEAVES_BIT);
+		TreeSpecies[] species = new TreeSpecies[speciesData.length / SPECIES_STRIDE];
+		for (int i = 0; i < species.length; i++) {
+			int bit = speciesData[i * SPECIES_STRIDE];
+			TagKey<Block> leaves = bit == LEAVES_BIT
+				? BlockTags.LEAVES
+				: TagKey.of(RegistryKeys.BLOCK, Identifier.of(AutomatedTreeHarvesting.MOD_ID, "trace_leaves_" + i));
+			if (bit > LEAVES_BIT && bit < MAX_TAGS) {
+				tags.bits.put(leaves, bit);
+			}
+			species[i] = new TreeSpecies(
+				Identifier.of(AutomatedTreeHarvesting.MOD_ID, "trace_species_" + i),
+				BlockTags.LOGS,
+				Blocks.AIR.getDefaultState(),
+				speciesData[i * SPECIES_STRIDE + 1],
+				leaves,
+				speciesData[i * SPECIES_STRIDE + 2],
+				speciesData[i * SPECIES_STRIDE + 3]
+			);
+		}
+		for (int i = 0; i < palette.length; i++) {
+			tags.masks.put(palette[i], masks[i]);
+			if (indices[i] >= 0 && indices[i] < species.length) {
+				tags.species.put(palette[i], species[indices[i]]);
+			}
+		}
+		return tags;
+	}
+}
@@ -3,127 +3,217 @@ package chihalu.automated.tree.harvesting.logic;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Deque;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import chihalu.automated.tree.harvesting.config.HarvestConfig;
+import chihalu.automated.tree.harvesting.config.HarvestProfile;
+import chihalu.automated.tree.harvesting.profiling.BlockBreakEvent;
+import chihalu.automated.tree.harvesting.profiling.DropSpawnEvent;
+import chihalu.automated.tree.harvesting.profiling.FrameScanEvent;
+import chihalu.automated.tree.harvesting.profiling.HarvestProfiler;
+import chihalu.automated.tree.harvesting.profiling.LeafCollectionEvent;
+import chihalu.automated.tree.harvesting.profiling.LogCollectionEvent;
+import chihalu.automated.tree.harvesting.profiling.PendingPlantTickEvent;
+import chihalu.automated.tree.harvesting.profiling.TreeBaseSearchEvent;
+import chihalu.automated.tree.harvesting.species.TreeSpecies;
+import chihalu.automated.tree.harvesting.species.TreeSpeciesManager;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.Blocks;
-import net.minecraft.block.HopperBlock;
+import net.minecraft.block.LeavesBlock;
 import net.minecraft.block.entity.BlockEntity;
 import net.minecraft.block.entity.HopperBlockEntity;
 import net.minecraft.entity.ItemEntity;
 import net.minecraft.entity.decoration.ItemFrameEntity;
+import net.minecraft.inventory.Inventory;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.Items;
-import net.minecraft.registry.RegistryKey;
-import net.minecraft.registry.RegistryKeys;
-import net.minecraft.registry.Registries;
 import net.minecraft.registry.tag.BlockTags;
 import net.minecraft.registry.tag.ItemTags;
 import net.minecraft.registry.tag.TagKey;
 import net.minecraft.server.world.ServerWorld;
-import net.minecraft.sound.SoundCategory;
-import net.minecraft.sound.SoundEvents;
-import net.minecraft.util.Identifier;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Box;
 import net.minecraft.util.math.Direction;
-import net.minecraft.world.World;
+import net.minecraft.util.math.Vec3d;
 
 public final class TreeHarvestManager {
-	private static final int MAX_LOGS = 512;
-	private static final int MAX_LEAVES = 2048;
-	private static final int HORIZONTAL_RADIUS = 6;
-	private static final int VERTICAL_BELOW = 4;
-	private static final int VERTICAL_ABOVE = 32;
-	private static final long REPLANT_DELAY_TICKS = 200L;
-	private static final Map<PendingKey, PendingPlant> PENDING_PLANTS = new HashMap<>();
-	private static final Set<RegistryKey<World>> SYNCED_WORLDS = new HashSet<>();
-	private static final TagKey<Block> PALE_OAK_LOGS_TAG = TagKey.of(RegistryKeys.BLOCK, Identifier.of("minecraft", "pale_oak_logs"));
-	private static final Identifier PALE_OAK_SAPLING_ID = Identifier.of("minecraft", "pale_oak_sapling");
+	private static final Direction[] DIRECTIONS = Direction.values();
+	private static final int UNKNOWN_LEAF_DISTANCE = -1;
+	private static final int REPLANT_BUFFER_SLOTS = 5;
 
 	private TreeHarvestManager() {
 	}
 
-	private record PendingKey(RegistryKey<World> worldKey, BlockPos pos) {
-		private boolean matches(ServerWorld world) {
-			return world.getRegistryKey().equals(worldKey);
-		}
+	private enum ReplantStatus {
+		READY,
+		WAITING,
+		CANCELLED
 	}
 
-	private static final class PendingPlant {
-		private final BlockState saplingState;
-		private final BlockState belowState;
-		private final long createdTick;
+	private record TreeScan(TreeSpecies species, Set<BlockPos> logs, Set<BlockPos> leaves) {
+	}
 
-		private PendingPlant(BlockState saplingState, BlockState belowState, long createdTick) {
-			this.saplingState = saplingState;
-			this.belowState = belowState;
-			this.createdTick = createdTick;
+	private static BlockPos[] footprintPositions(BlockPos anchor, int footprint) {
+		if (footprint == 1) {
+			return new BlockPos[] { anchor };
 		}
+		return new BlockPos[] { anchor, anchor.add(1, 0, 0), anchor.add(0, 0, 1), anchor.add(1, 0, 1) };
 	}
 
-	private static void loadPendingFromStorage(ServerWorld world) {
-		if (!SYNCED_WORLDS.add(world.getRegistryKey())) {
-			return;
+	private static boolean isPending(PendingPlantStore store, BlockPos pos) {
+		for (int dx = 0; dx <= 1; dx++) {
+			for (int dz = 0; dz <= 1; dz++) {
+				int footprint = store.footprintAt(BlockPos.asLong(pos.getX() - dx, pos.getY(), pos.getZ() - dz));
+				if (footprint == 2 || (footprint == 1 && dx == 0 && dz == 0)) {
+					return true;
+				}
+			}
 		}
-		PendingPlantStorage storage = PendingPlantStorage.get(world);
-		storage.forEachLoaded(world, (pos, saplingState, belowState, createdTick) -> {
-			PendingKey key = new PendingKey(world.getRegistryKey(), pos.toImmutable());
-			PENDING_PLANTS.computeIfAbsent(key, ignored -> new PendingPlant(saplingState, belowState, createdTick));
-		});
+		return false;
 	}
 
-	private static void removePendingEntry(Iterator<Map.Entry<PendingKey, PendingPlant>> iterator, ServerWorld world, PendingKey key) {
-		iterator.remove();
-		PendingPlantStorage.get(world).remove(key.pos());
+	public enum FrameResult {
+		SKIPPED,
+		NO_TREE,
+		HARVESTED
 	}
 
-	public static void onFrameTick(ServerWorld world, ItemFrameEntity frame) {
+	public static FrameResult onFrameTick(ServerWorld world, ItemFrameEntity frame, HarvestProfile profile) {
 		ItemStack tool = frame.getHeldItemStack();
 		if (!isAxe(tool)) {
-			return;
+			return FrameResult.SKIPPED;
+		}
+
+		if (FrameCostTracker.isBackedOff(world, frame)) {
+			return FrameResult.SKIPPED;
+		}
+
+		BlockPos framePos = frame.getBlockPos();
+		FrameScanEvent event = HarvestProfiler.begin("frameScan", new FrameScanEvent());
+		long startNanos = System.nanoTime();
+		FrameResult result = FrameResult.SKIPPED;
+		int harvested = 0;
+		try {
+			long time = world.getTime();
+			TickScanCache scanCache = HarvestWorldState.get(world).tickScanCache;
+			if (!scanCache.touchesHarvestedTree(time, frame.getAttachedBlockPos())) {
+				TraceScan trace = HarvestTraceRecorder.begin(world, frame, profile);
+				ScanView view = trace != null ? ScanView.recording(world, trace) : new ScanView(world);
+				TreeBaseSearchEvent baseEvent = HarvestProfiler.begin("findTreeBase", new TreeBaseSearchEvent());
+				BlockPos base = null;
+				try {
+					base = findTreeBase(view, frame.getAttachedBlockPos(), new Vec3d(frame.getX(), frame.getY(), frame.getZ()), profile);
+				} finally {
+					HarvestProfiler.end(baseEvent, world, framePos, base == null ? 0 : 1);
+				}
+				if (view.isClipped()) {
+					result = FrameResult.SKIPPED;
+				} else if (base == null) {
+					result = FrameResult.NO_TREE;
+				} else if (scanCache.claim(time, base)) {
+					List<ItemStack> drops = new ArrayList<>();
+					harvested = harvestTree(world, view, scanCache, frame, framePos, tool, profile, base, drops);
+					spawnCollectedDrops(world, frame, base, drops);
+					if (harvested > 0) {
+						result = FrameResult.HARVESTED;
+					}
+				}
+				if (trace != null) {
+					trace.complete(base == null ? TraceScan.NO_TREE : harvested > 0 ? harvested : TraceScan.NOT_HARVESTED);
+				}
+			}
+		} finally {
+			HarvestProfiler.end(event, world, framePos, harvested);
 		}
+		FrameCostTracker.record(world, frame, System.nanoTime() - startNanos, harvested > 0);
+		return result;
+	}
 
-		BlockPos base = findTreeBase(world, frame);
-		if (base == null) {
-			return;
+	static int harvestTree(
+		ServerWorld world,
+		ScanView view,
+		TickScanCache scanCache,
+		ItemFrameEntity frame,
+		BlockPos framePos,
+		ItemStack tool,
+		HarvestProfile profile,
+		BlockPos base,
+		List<ItemStack> drops
+	) {
+		TreeScan scan = scanTree(world, view, framePos, base, profile);
+		if (scan == null || view.isClipped()) {
+			return 0;
 		}
+		TreeSpecies species = scan.species();
+		Set<BlockPos> logs = scan.logs();
+		Set<BlockPos> leaves = scan.leaves();
 
-		Set<BlockPos> logs = collectLogs(world, base);
-		if (logs.isEmpty()) {
-			return;
+		ItemStack shears = findShears(world, frame);
+
+		BlockBreakEvent breakEvent = HarvestProfiler.begin("breakBlocks", new BlockBreakEvent());
+		boolean harvestedLogs;
+		try {
+			HarvestRemoval removal = new HarvestRemoval(world);
+			HarvestEffects effects = new HarvestEffects(world, base);
+			harvestedLogs = breakBlocks(world, removal, effects, logs, tool, frame, drops);
+			breakLeaves(world, removal, effects, leaves, tool, shears, frame, profile, drops);
+			removal.finish();
+			effects.finish();
+			scanCache.markHarvested(world.getTime(), logs);
+		} finally {
+			HarvestProfiler.end(breakEvent, world, framePos, logs.size() + leaves.size());
 		}
 
-		BlockState baseState = world.getBlockState(base);
-		ItemStack shears = findShears(world, frame);
-		Set<BlockPos> leaves = collectLeaves(world, logs, base);
+		if (harvestedLogs && species != null) {
+			tryReplantSapling(world, base, species, logs);
+		}
 
-		boolean harvestedLogs = breakBlocks(world, logs, tool, frame, base);
-		boolean harvestedLeaves = !leaves.isEmpty() && breakLeaves(world, leaves, tool, shears, frame, base);
+		return logs.size() + leaves.size();
+	}
 
-		if (harvestedLogs) {
-			tryReplantSapling(world, base, baseState, logs);
+	private static TreeScan scanTree(ServerWorld world, ScanView view, BlockPos framePos, BlockPos base, HarvestProfile profile) {
+		TreeSpecies species = view.species(view.getBlockState(base));
+		HarvestProfile scanProfile = species != null ? TreeSpeciesManager.scanProfile(species, profile) : profile;
+		LogCollectionEvent logEvent = HarvestProfiler.begin("collectLogs", new LogCollectionEvent());
+		Set<BlockPos> logs = Set.of();
+		try {
+			logs = collectLogs(view, base, scanProfile);
+		} finally {
+			HarvestProfiler.end(logEvent, world, framePos, logs.size());
+		}
+		if (logs.isEmpty()) {
+			return null;
 		}
 
-		if (harvestedLogs || harvestedLeaves) {
-			world.playSound(
-				null,
-				base,
-				SoundEvents.BLOCK_WOOD_BREAK,
-				SoundCategory.BLOCKS,
-				1.0F,
-				0.9F + world.getRandom().nextFloat() * 0.2F
-			);
+		TagKey<Block> leafTag = species != null ? species.leaves() : BlockTags.LEAVES;
+		LeafCollectionEvent leafEvent = HarvestProfiler.begin("collectLeaves", new LeafCollectionEvent());
+		Set<BlockPos> leaves = Set.of();
+		try {
+			leaves = collectLeaves(view, logs, base, scanProfile, leafTag);
+		} finally {
+			HarvestProfiler.end(leafEvent, world, framePos, leaves.size());
+		}
+		return new TreeScan(species, logs, leaves);
+	}
+
+	static int replayScan(ScanView view, BlockPos support, Vec3d framePos, HarvestProfile profile, boolean harvest) {
+		BlockPos base = findTreeBase(view, support, framePos, profile);
+		if (base == null) {
+			return TraceScan.NO_TREE;
+		}
+		if (!harvest) {
+			return TraceScan.NOT_HARVESTED;
 		}
+		TreeScan scan = scanTree(null, view, null, base, profile);
+		return scan == null ? 0 : scan.logs().size() + scan.leaves().size();
 	}
 
-	private static boolean isAxe(ItemStack stack) {
+	static boolean isAxe(ItemStack stack) {
 		return !stack.isEmpty() && stack.isIn(ItemTags.AXES);
 	}
 
@@ -131,22 +221,25 @@ public final class TreeHarvestManager {
 		return !stack.isEmpty() && stack.isOf(Items.SHEARS);
 	}
 
-	private static BlockPos findTreeBase(ServerWorld world, ItemFrameEntity frame) {
-		BlockPos support = frame.getAttachedBlockPos();
-		BlockPos min = support.add(-HORIZONTAL_RADIUS, -VERTICAL_BELOW, -HORIZONTAL_RADIUS);
-		BlockPos max = support.add(HORIZONTAL_RADIUS, VERTICAL_ABOVE, HORIZONTAL_RADIUS);
+	private static BlockPos findTreeBase(ScanView view, BlockPos support, Vec3d framePos, HarvestProfile profile) {
+		int radius = profile.horizontalRadius();
+		BlockPos min = support.add(-radius, -profile.verticalBelow(), -radius);
+		BlockPos max = support.add(radius, profile.verticalAbove(), radius);
+		if (!view.mayContainLogs(min, max)) {
+			return null;
+		}
 
 		BlockPos closest = null;
 		double closestDistance = Double.MAX_VALUE;
 
 		for (BlockPos pos : BlockPos.iterate(min, max)) {
-			BlockState state = world.getBlockState(pos);
-			if (!state.isIn(BlockTags.LOGS)) {
+			BlockState state = view.getBlockState(pos);
+			if (!view.isIn(state, BlockTags.LOGS)) {
 				continue;
 			}
-			double dx = frame.getX() - (pos.getX() + 0.5);
-			double dy = frame.getY() - (pos.getY() + 0.5);
-			double dz = frame.getZ() - (pos.getZ() + 0.5);
+			double dx = framePos.x - (pos.getX() + 0.5);
+			double dy = framePos.y - (pos.getY() + 0.5);
+			double dz = framePos.z - (pos.getZ() + 0.5);
 			double distance = dx * dx + dy * dy + dz * dz;
 			if (distance < closestDistance) {
 				closestDistance = distance;
@@ -173,25 +266,27 @@ public final class TreeHarvestManager {
 		return closest;
 	}
 
-	private static Set<BlockPos> collectLogs(ServerWorld world, BlockPos start) {
+	private static Set<BlockPos> collectLogs(ScanView view, BlockPos start, HarvestProfile profile) {
 		Set<BlockPos> collected = new HashSet<>();
 		Set<BlockPos> visited = new HashSet<>();
 		Deque<BlockPos> queue = new ArrayDeque<>();
 		queue.add(start);
 
-		int minY = start.getY() - VERTICAL_BELOW;
-		int maxY = start.getY() + VERTICAL_ABOVE;
+		int radius = profile.horizontalRadius();
+		int maxLogs = profile.maxLogs();
+		int minY = start.getY() - profile.verticalBelow();
+		int maxY = start.getY() + profile.verticalAbove();
 
-		while (!queue.isEmpty() && collected.size() < MAX_LOGS) {
+		while (!queue.isEmpty() && collected.size() < maxLogs) {
 			BlockPos current = queue.removeFirst();
 			if (!visited.add(current)) {
 				continue;
 			}
-			if (!withinRadius(start, current, HORIZONTAL_RADIUS) || current.getY() < minY || current.getY() > maxY) {
+			if (!withinRadius(start, current, radius) || current.getY() < minY || current.getY() > maxY) {
 				continue;
 			}
-			BlockState state = world.getBlockState(current);
-			if (!state.isIn(BlockTags.LOGS)) {
+			BlockState state = view.getBlockState(current);
+			if (!view.isIn(state, BlockTags.LOGS)) {
 				continue;
 			}
 			collected.add(current.toImmutable());
@@ -206,10 +301,10 @@ public final class TreeHarvestManager {
 						if (visited.contains(neighbor)) {
 							continue;
 						}
-						if (!withinRadius(start, neighbor, HORIZONTAL_RADIUS) || neighbor.getY() < minY || neighbor.getY() > maxY) {
+						if (!withinRadius(start, neighbor, radius) || neighbor.getY() < minY || neighbor.getY() > maxY) {
 							continue;
 						}
-						if (world.getBlockState(neighbor).isIn(BlockTags.LOGS)) {
+						if (view.isIn(view.getBlockState(neighbor), BlockTags.LOGS)) {
 							queue.addLast(neighbor);
 						}
 					}
@@ -219,43 +314,51 @@ public final class TreeHarvestManager {
 		return collected;
 	}
 
-	private static Set<BlockPos> collectLeaves(ServerWorld world, Set<BlockPos> logs, BlockPos base) {
+	private static Set<BlockPos> collectLeaves(ScanView view, Set<BlockPos> logs, BlockPos base, HarvestProfile profile, TagKey<Block> leafTag) {
 		Set<BlockPos> collected = new HashSet<>();
 		Set<BlockPos> seen = new HashSet<>(logs);
 		Deque<BlockPos> queue = new ArrayDeque<>(logs);
 
-		int minY = base.getY() - VERTICAL_BELOW;
-		int maxY = base.getY() + VERTICAL_ABOVE + 6;
+		int radius = profile.leafRadius();
+		int maxLeaves = profile.maxLeaves();
+		int minY = base.getY() - profile.verticalBelow();
+		int maxY = base.getY() + profile.leafVerticalAbove();
 
-		while (!queue.isEmpty() && collected.size() < MAX_LEAVES) {
+		// Follow leaves the way their distance property was computed: face neighbours
+		// only, one step further from the trunk each time. A neighbouring canopy is
+		// closer to its own logs, so it never continues the chain from ours.
+		while (!queue.isEmpty() && collected.size() < maxLeaves) {
 			BlockPos current = queue.removeFirst();
+			int currentDistance = logs.contains(current) ? 0 : leafDistance(view.getBlockState(current));
 
-			for (int dx = -1; dx <= 1; dx++) {
-				for (int dy = -1; dy <= 1; dy++) {
-					for (int dz = -1; dz <= 1; dz++) {
-						if (dx == 0 && dy == 0 && dz == 0) {
-							continue;
-						}
-						BlockPos neighbor = current.add(dx, dy, dz);
-						if (!seen.add(neighbor)) {
-							continue;
-						}
-						if (!withinRadius(base, neighbor, HORIZONTAL_RADIUS + 2) || neighbor.getY() < minY || neighbor.getY() > maxY) {
-							continue;
-						}
-						BlockState state = world.getBlockState(neighbor);
-						if (!state.isIn(BlockTags.LEAVES)) {
-							continue;
-						}
-						collected.add(neighbor.toImmutable());
-						queue.addLast(neighbor);
-					}
+			for (Direction direction : DIRECTIONS) {
+				BlockPos neighbor = current.offset(direction);
+				if (seen.contains(neighbor)) {
+					continue;
+				}
+				if (!withinRadius(base, neighbor, radius) || neighbor.getY() < minY || neighbor.getY() > maxY) {
+					continue;
+				}
+				BlockState state = view.getBlockState(neighbor);
+				if (!view.isIn(state, leafTag) || state.getOrEmpty(LeavesBlock.PERSISTENT).orElse(false)) {
+					continue;
+				}
+				int distance = leafDistance(state);
+				if (distance != UNKNOWN_LEAF_DISTANCE && currentDistance != UNKNOWN_LEAF_DISTANCE && distance != currentDistance + 1) {
+					continue;
 				}
+				seen.add(neighbor);
+				collected.add(neighbor);
+				queue.addLast(neighbor);
 			}
 		}
 		return collected;
 	}
 
+	private static int leafDistance(BlockState state) {
+		return state.getOrEmpty(LeavesBlock.DISTANCE).orElse(UNKNOWN_LEAF_DISTANCE);
+	}
+
 	private static ItemStack findShears(ServerWorld world, ItemFrameEntity sourceFrame) {
 		Box searchBox = sourceFrame.getBoundingBox().expand(2.0D);
 		List<ItemFrameEntity> frames = world.getEntitiesByClass(
@@ -269,201 +372,149 @@ public final class TreeHarvestManager {
 
 	private static boolean breakBlocks(
 		ServerWorld world,
+		HarvestRemoval removal,
+		HarvestEffects effects,
 		Set<BlockPos> positions,
 		ItemStack tool,
 		ItemFrameEntity frame,
-		BlockPos dropTarget
+		List<ItemStack> collectedDrops
 	) {
 		boolean brokeAny = false;
-		List<ItemStack> collectedDrops = new ArrayList<>();
 
-		ItemStack dropTool = tool.isEmpty() ? ItemStack.EMPTY : tool.copy();
+		HarvestLoot loot = new HarvestLoot(world, frame, tool);
 
 		for (BlockPos pos : positions) {
+			if (!ScanView.isLoaded(world, pos)) {
+				continue;
+			}
 			BlockState state = world.getBlockState(pos);
 			if (state.isAir()) {
 				continue;
 			}
 
-			BlockEntity blockEntity = world.getBlockEntity(pos);
-			List<ItemStack> drops = Block.getDroppedStacks(state, world, pos, blockEntity, frame, dropTool);
+			List<ItemStack> drops = loot.roll(state, pos);
 			for (ItemStack drop : drops) {
 				if (!drop.isEmpty()) {
 					collectedDrops.add(drop.copy());
 				}
 			}
-			state.onStacksDropped(world, pos, dropTool, true);
-			world.setBlockState(pos, Blocks.AIR.getDefaultState(), Block.NOTIFY_ALL);
-			world.syncWorldEvent(null, 2001, pos, Block.getRawIdFromState(state));
+			state.onStacksDropped(world, pos, loot.tool(), true);
+			removal.remove(pos);
+			effects.blockBroken(pos, state);
 			brokeAny = true;
 		}
 
-		if (brokeAny) {
-			spawnCollectedDrops(world, dropTarget, collectedDrops);
-		}
-
 		return brokeAny;
 	}
 
-	private static void spawnCollectedDrops(ServerWorld world, BlockPos dropTarget, List<ItemStack> drops) {
+	static void spawnCollectedDrops(ServerWorld world, ItemFrameEntity frame, BlockPos dropTarget, List<ItemStack> drops) {
 		if (dropTarget == null || drops.isEmpty()) {
 			return;
 		}
 
+		DropSpawnEvent event = HarvestProfiler.begin("spawnDrops", new DropSpawnEvent());
+
 		double x = dropTarget.getX() + 0.5D;
 		double y = dropTarget.getY() + 0.25D;
 		double z = dropTarget.getZ() + 0.5D;
 
-		for (ItemStack stack : drops) {
-			if (stack.isEmpty()) {
-				continue;
+		try {
+			for (ItemStack stack : drops) {
+				if (stack.isEmpty()) {
+					continue;
+				}
+				ItemEntity item = new ItemEntity(world, x, y, z, stack.copy());
+				item.setVelocity(0.0D, 0.0D, 0.0D);
+				item.setToDefaultPickupDelay();
+				world.spawnEntity(item);
 			}
-			ItemEntity item = new ItemEntity(world, x, y, z, stack.copy());
-			item.setVelocity(0.0D, 0.0D, 0.0D);
-			item.setToDefaultPickupDelay();
-			world.spawnEntity(item);
+		} finally {
+			HarvestProfiler.end(event, world, frame.getBlockPos(), drops.size());
 		}
 	}
 
-	private static boolean breakLeaves(
+	private static void breakLeaves(
 		ServerWorld world,
+		HarvestRemoval removal,
+		HarvestEffects effects,
 		Set<BlockPos> positions,
 		ItemStack axe,
 		ItemStack shears,
 		ItemFrameEntity frame,
-		BlockPos dropTarget
+		HarvestProfile profile,
+		List<ItemStack> collectedDrops
 	) {
 		if (positions.isEmpty()) {
-			return false;
+			return;
 		}
 
-		ItemStack fortuneTool = axe.isEmpty() ? ItemStack.EMPTY : axe.copy();
-		ItemStack shearsTool = shears.isEmpty() ? ItemStack.EMPTY : shears.copy();
-		boolean shearsAvailable = !shearsTool.isEmpty();
+		HarvestLoot fortuneLoot = new HarvestLoot(world, frame, axe);
+		HarvestLoot shearsLoot = shears.isEmpty() ? null : new HarvestLoot(world, frame, shears);
+		boolean shearsAvailable = shearsLoot != null;
 
-		boolean brokeAny = false;
 		boolean hasSapling = false;
-		List<ItemStack> collectedDrops = new ArrayList<>();
+		Map<BlockState, List<BlockPos>> aggregated = profile.aggregateLeafLoot() ? new LinkedHashMap<>() : null;
+		HarvestLoot aggregatedLoot = null;
 
 		for (BlockPos pos : positions) {
+			if (!ScanView.isLoaded(world, pos)) {
+				continue;
+			}
 			BlockState state = world.getBlockState(pos);
 			if (state.isAir()) {
 				continue;
 			}
 
-			ItemStack chosenTool = (!shearsAvailable || !hasSapling) ? fortuneTool : shearsTool;
-			ItemStack toolForDrops = chosenTool.isEmpty() ? ItemStack.EMPTY : chosenTool.copy();
-
-			BlockEntity blockEntity = world.getBlockEntity(pos);
-			List<ItemStack> drops = Block.getDroppedStacks(state, world, pos, blockEntity, frame, toolForDrops);
-			for (ItemStack drop : drops) {
-				if (drop.isEmpty()) {
-					continue;
-				}
-				collectedDrops.add(drop.copy());
-				if (!hasSapling && drop.isIn(ItemTags.SAPLINGS)) {
-					hasSapling = true;
+			HarvestLoot loot = (!shearsAvailable || !hasSapling) ? fortuneLoot : shearsLoot;
+			if (aggregated != null && (!shearsAvailable || hasSapling)) {
+				aggregated.computeIfAbsent(state, ignored -> new ArrayList<>()).add(pos);
+				aggregatedLoot = loot;
+			} else {
+				List<ItemStack> drops = loot.roll(state, pos);
+				for (ItemStack drop : drops) {
+					if (drop.isEmpty()) {
+						continue;
+					}
+					collectedDrops.add(drop.copy());
+					if (!hasSapling && drop.isIn(ItemTags.SAPLINGS)) {
+						hasSapling = true;
+					}
 				}
 			}
 
-			state.onStacksDropped(world, pos, toolForDrops, true);
-			world.setBlockState(pos, Blocks.AIR.getDefaultState(), Block.NOTIFY_ALL);
-			world.syncWorldEvent(null, 2001, pos, Block.getRawIdFromState(state));
-			brokeAny = true;
+			state.onStacksDropped(world, pos, loot.tool(), true);
+			removal.remove(pos);
+			effects.blockBroken(pos, state);
 		}
 
-		if (brokeAny) {
-			spawnCollectedDrops(world, dropTarget, collectedDrops);
+		if (aggregatedLoot != null) {
+			for (Map.Entry<BlockState, List<BlockPos>> group : aggregated.entrySet()) {
+				collectedDrops.addAll(aggregatedLoot.sample(group.getKey(), group.getValue(), profile.leafLootSamples()));
+			}
 		}
-
-		return brokeAny;
 	}
 
-	private static void tryReplantSapling(ServerWorld world, BlockPos base, BlockState baseState, Set<BlockPos> logs) {
-		BlockState saplingState = resolveSaplingState(baseState);
-		if (saplingState == null) {
-			return;
-		}
-
-		if (requiresTwoByTwo(baseState)) {
+	private static void tryReplantSapling(ServerWorld world, BlockPos base, TreeSpecies species, Set<BlockPos> logs) {
+		BlockState saplingState = species.sapling();
+		if (species.requiresTwoByTwo()) {
 			BlockPos anchor = findTwoByTwoAnchor(logs, base);
 			if (anchor == null) {
 				return;
 			}
 
-			BlockPos east = anchor.add(1, 0, 0);
-			BlockPos south = anchor.add(0, 0, 1);
-			BlockPos southEast = anchor.add(1, 0, 1);
-
-			BlockState anchorBelow = world.getBlockState(anchor.down());
-			BlockState eastBelow = world.getBlockState(east.down());
-			BlockState southBelow = world.getBlockState(south.down());
-			BlockState southEastBelow = world.getBlockState(southEast.down());
-
-			if (canPlaceSapling(world, anchor, saplingState)
-				&& canPlaceSapling(world, east, saplingState)
-				&& canPlaceSapling(world, south, saplingState)
-				&& canPlaceSapling(world, southEast, saplingState)) {
-				schedulePlant(world, anchor, saplingState, anchorBelow);
-				schedulePlant(world, east, saplingState, eastBelow);
-				schedulePlant(world, south, saplingState, southBelow);
-				schedulePlant(world, southEast, saplingState, southEastBelow);
+			BlockPos[] positions = footprintPositions(anchor, 2);
+			for (BlockPos pos : positions) {
+				if (!canPlaceSapling(world, pos, saplingState)) {
+					return;
+				}
 			}
+			schedulePlant(world, anchor, saplingState, positions);
 			return;
 		}
 
 		if (canPlaceSapling(world, base, saplingState)) {
-			BlockState belowState = world.getBlockState(base.down());
-			schedulePlant(world, base, saplingState, belowState);
-		}
-	}
-
-	private static BlockState resolveSaplingState(BlockState logState) {
-		if (logState.isIn(BlockTags.OAK_LOGS)) {
-			return Blocks.OAK_SAPLING.getDefaultState();
-		}
-		if (logState.isIn(BlockTags.SPRUCE_LOGS)) {
-			return Blocks.SPRUCE_SAPLING.getDefaultState();
-		}
-		if (logState.isIn(BlockTags.BIRCH_LOGS)) {
-			return Blocks.BIRCH_SAPLING.getDefaultState();
-		}
-		if (logState.isIn(BlockTags.JUNGLE_LOGS)) {
-			return Blocks.JUNGLE_SAPLING.getDefaultState();
-		}
-		if (logState.isIn(BlockTags.ACACIA_LOGS)) {
-			return Blocks.ACACIA_SAPLING.getDefaultState();
-		}
-		if (logState.isIn(BlockTags.DARK_OAK_LOGS)) {
-			return Blocks.DARK_OAK_SAPLING.getDefaultState();
-		}
-		if (logState.isIn(BlockTags.CHERRY_LOGS)) {
-			return Blocks.CHERRY_SAPLING.getDefaultState();
-		}
-		BlockState paleOakSapling = getOptionalPaleOakSapling();
-		if (paleOakSapling != null && isPaleOakLog(logState)) {
-			return paleOakSapling;
-		}
-		return null;
-	}
-
-	private static boolean requiresTwoByTwo(BlockState logState) {
-		return logState.isIn(BlockTags.DARK_OAK_LOGS)
-			|| logState.isIn(BlockTags.SPRUCE_LOGS)
-			|| logState.isIn(BlockTags.JUNGLE_LOGS)
-			|| isPaleOakLog(logState);
-	}
-
-	private static boolean isPaleOakLog(BlockState state) {
-		return state.isIn(PALE_OAK_LOGS_TAG);
-	}
-
-	private static BlockState getOptionalPaleOakSapling() {
-		if (!Registries.BLOCK.getIds().contains(PALE_OAK_SAPLING_ID)) {
-			return null;
+			schedulePlant(world, base, saplingState, footprintPositions(base, 1));
 		}
-		Block block = Registries.BLOCK.get(PALE_OAK_SAPLING_ID);
-		return block == Blocks.AIR ? null : block.getDefaultState();
 	}
 
 	private static BlockPos findTwoByTwoAnchor(Set<BlockPos> logs, BlockPos base) {
@@ -482,23 +533,20 @@ public final class TreeHarvestManager {
 		return null;
 	}
 
-	private static void schedulePlant(ServerWorld world, BlockPos pos, BlockState saplingState, BlockState belowState) {
-		PendingKey key = new PendingKey(world.getRegistryKey(), pos.toImmutable());
-		if (PENDING_PLANTS.containsKey(key)) {
-			return;
+	private static void schedulePlant(ServerWorld world, BlockPos anchor, BlockState saplingState, BlockPos[] positions) {
+		PendingPlantStorage storage = HarvestWorldState.get(world).pendingPlants;
+		for (BlockPos pos : positions) {
+			if (isPending(storage.store(), pos)) {
+				return;
+			}
 		}
 
-		BlockPos hopperPos = pos.down();
-		world.setBlockState(pos, Blocks.AIR.getDefaultState(), Block.NOTIFY_ALL);
-
-		if (!world.getBlockState(hopperPos).isOf(Blocks.HOPPER)) {
-			BlockState hopperState = Blocks.HOPPER.getDefaultState().with(HopperBlock.FACING, Direction.DOWN);
-			world.setBlockState(hopperPos, hopperState, Block.NOTIFY_ALL);
+		BlockState[] belowStates = new BlockState[positions.length];
+		for (int i = 0; i < positions.length; i++) {
+			belowStates[i] = world.getBlockState(positions[i].down());
 		}
 
-		long createdTick = world.getTime();
-		PENDING_PLANTS.put(key, new PendingPlant(saplingState, belowState, createdTick));
-		PendingPlantStorage.get(world).put(pos, saplingState, belowState, createdTick);
+		storage.put(anchor, saplingState, belowStates, world.getTime());
 	}
 
 	private static boolean canPlaceSapling(ServerWorld world, BlockPos pos, BlockState saplingState) {
@@ -508,7 +556,7 @@ public final class TreeHarvestManager {
 		return saplingState.canPlaceAt(world, pos);
 	}
 
-	private static boolean hasItemsOnColumn(ServerWorld world, BlockPos soilPos) {
+	private static List<ItemEntity> getItemsOnColumn(ServerWorld world, BlockPos soilPos) {
 		double minX = soilPos.getX() + 0.05;
 		double minZ = soilPos.getZ() + 0.05;
 		double maxX = soilPos.getX() + 0.95;
@@ -517,97 +565,190 @@ public final class TreeHarvestManager {
 		double maxY = soilPos.getY() + 1.5;
 
 		Box columnBox = new Box(minX, minY, minZ, maxX, maxY, maxZ);
-		return !world.getEntitiesByClass(
+		return world.getEntitiesByClass(
 			ItemEntity.class,
 			columnBox,
 			item -> !item.isRemoved()
-		).isEmpty();
+		);
 	}
 
-	private static boolean isLowerChainReady(ServerWorld world, BlockPos startHopperPos) {
-		BlockPos current = startHopperPos.down();
-		int depth = 0;
-		while (depth < 8) {
-			BlockState state = world.getBlockState(current);
-			if (!state.isOf(Blocks.HOPPER)) {
-				return true;
+	private static boolean withinRadius(BlockPos center, BlockPos pos, int radius) {
+		return Math.abs(pos.getX() - center.getX()) <= radius
+			&& Math.abs(pos.getZ() - center.getZ()) <= radius;
+	}
+
+	public static void tick(ServerWorld world) {
+		HarvestWorldState state = HarvestWorldState.get(world);
+		FrameCostTracker.tick(world, state);
+		AreaHarvester.tick(world, state);
+		BlockChangeTracker.tick(world, state, HarvestConfig.profile(world).maxCheckIntervalTicks());
+		PendingPlantTickEvent event = HarvestProfiler.begin("pendingPlants", new PendingPlantTickEvent());
+		try {
+			tickPendingPlants(world, state);
+		} finally {
+			HarvestProfiler.end(event, world, null, state.pendingPlants.store().size());
+		}
+	}
+
+	private static void tickPendingPlants(ServerWorld world, HarvestWorldState state) {
+		long replantDelayTicks = HarvestConfig.profile(world).replantDelayTicks();
+		PendingPlantStorage storage = state.pendingPlants;
+		PendingPlantStore store = storage.store();
+		// Walk slots from the end so the swap-remove never moves an unvisited job.
+		for (int slot = store.size() - 1; slot >= 0; slot--) {
+			if (world.getTime() - store.createdTick(slot) < replantDelayTicks) {
+				continue;
 			}
 
-			BlockEntity blockEntity = world.getBlockEntity(current);
-			if (!(blockEntity instanceof HopperBlockEntity hopper)) {
-				return false;
+			BlockPos[] positions = footprintPositions(BlockPos.fromLong(store.anchor(slot)), store.footprint(slot));
+			if (!allLoaded(world, positions)) {
+				continue;
+			}
+			if (store.hasLegacyHopper(slot)) {
+				restoreBelowStates(world, positions, store, slot);
+				storage.clearLegacyHopper(slot);
 			}
 
-			boolean changed = HopperBlockEntity.extract(world, hopper);
-			List<ItemEntity> aboveItems = HopperBlockEntity.getInputItemEntities(world, hopper);
-			for (ItemEntity item : aboveItems) {
-				if (item.isRemoved()) {
-					continue;
+			ReplantStatus status = ReplantStatus.READY;
+			for (BlockPos soilPos : positions) {
+				ReplantStatus positionStatus = collectColumn(world, storage, soilPos);
+				if (positionStatus == ReplantStatus.CANCELLED) {
+					status = positionStatus;
+					break;
 				}
-				if (HopperBlockEntity.extract(hopper, item)) {
-					changed = true;
+				if (positionStatus == ReplantStatus.WAITING) {
+					status = positionStatus;
 				}
 			}
-			if (changed) {
-				HopperBlockEntity.extract(world, hopper);
+
+			if (status == ReplantStatus.CANCELLED) {
+				spillBuffers(world, storage, positions);
+				storage.removeAt(slot);
+				continue;
+			}
+			if (status == ReplantStatus.WAITING) {
+				continue;
 			}
 
-			if (!hopper.isEmpty() || hasItemsOnColumn(world, current.up())) {
-				return false;
+			BlockState saplingState = store.sapling(slot);
+			for (BlockPos soilPos : positions) {
+				if (saplingState.canPlaceAt(world, soilPos)) {
+					world.setBlockState(soilPos, saplingState, Block.NOTIFY_ALL);
+				} else {
+					Block.dropStack(world, soilPos, new ItemStack(saplingState.getBlock()));
+				}
 			}
+			storage.removeAt(slot);
+		}
+	}
 
-			current = current.down();
-			depth++;
+	private static boolean allLoaded(ServerWorld world, BlockPos[] positions) {
+		for (BlockPos pos : positions) {
+			if (!ScanView.isLoaded(world, pos)) {
+				return false;
+			}
 		}
 		return true;
 	}
 
-	private static boolean withinRadius(BlockPos center, BlockPos pos, int radius) {
-		return Math.abs(pos.getX() - center.getX()) <= radius
-			&& Math.abs(pos.getZ() - center.getZ()) <= radius;
+	private static ReplantStatus collectColumn(ServerWorld world, PendingPlantStorage storage, BlockPos soilPos) {
+		if (!world.getBlockState(soilPos).isAir()) {
+			return ReplantStatus.CANCELLED;
+		}
+
+		// The job holds the items resting on its soil in a buffer of hopper size and
+		// pushes them into whatever inventory sits below the soil, so the soil never
+		// has to be swapped for a ticking hopper. The buffer is saved with the job, so
+		// items held back by a full or missing chain do not despawn on the ground.
+		List<ItemStack> buffer = storage.buffer(world, soilPos);
+		boolean changed = absorbColumn(world, soilPos, buffer);
+		Inventory target = HopperBlockEntity.getInventoryAt(world, soilPos.down(2));
+		if (target != null) {
+			changed |= drainBuffer(buffer, target);
+		}
+		if (changed) {
+			storage.setBuffer(world, soilPos, buffer);
+		}
+
+		if (!buffer.isEmpty() || !getItemsOnColumn(world, soilPos).isEmpty() || !isLowerChainReady(world, soilPos.down())) {
+			return ReplantStatus.WAITING;
+		}
+		return ReplantStatus.READY;
 	}
 
-	public static void tick(ServerWorld world) {
-		loadPendingFromStorage(world);
-		Iterator<Map.Entry<PendingKey, PendingPlant>> iterator = PENDING_PLANTS.entrySet().iterator();
-		while (iterator.hasNext()) {
-			Map.Entry<PendingKey, PendingPlant> entry = iterator.next();
-			PendingKey key = entry.getKey();
-			PendingPlant pending = entry.getValue();
-			if (!key.matches(world)) {
-				continue;
+	private static boolean absorbColumn(ServerWorld world, BlockPos soilPos, List<ItemStack> buffer) {
+		boolean changed = false;
+		for (ItemEntity item : getItemsOnColumn(world, soilPos)) {
+			ItemStack remainder = item.getStack().copy();
+			int before = remainder.getCount();
+			for (ItemStack stack : buffer) {
+				if (remainder.isEmpty()) {
+					break;
+				}
+				if (stack.getCount() < stack.getMaxCount() && ItemStack.areItemsAndComponentsEqual(stack, remainder)) {
+					int moved = Math.min(remainder.getCount(), stack.getMaxCount() - stack.getCount());
+					stack.increment(moved);
+					remainder.decrement(moved);
+				}
 			}
-
-			if (world.getTime() - pending.createdTick < REPLANT_DELAY_TICKS) {
-				continue;
+			if (!remainder.isEmpty() && buffer.size() < REPLANT_BUFFER_SLOTS) {
+				buffer.add(remainder);
+				remainder = ItemStack.EMPTY;
 			}
 
-			BlockPos soilPos = key.pos();
-			BlockPos hopperPos = soilPos.down();
+			if (remainder.isEmpty()) {
+				item.discard();
+			} else if (remainder.getCount() != before) {
+				item.setStack(remainder);
+			}
+			changed |= remainder.getCount() != before;
+		}
+		return changed;
+	}
 
-			if (!world.getBlockState(soilPos).isAir()) {
-				removePendingEntry(iterator, world, key);
+	private static boolean drainBuffer(List<ItemStack> buffer, Inventory target) {
+		boolean changed = false;
+		for (int i = buffer.size() - 1; i >= 0; i--) {
+			ItemStack stack = buffer.get(i);
+			ItemStack remainder = HopperBlockEntity.transfer(null, target, stack.copy(), Direction.UP);
+			if (remainder.getCount() == stack.getCount()) {
 				continue;
 			}
+			changed = true;
+			if (remainder.isEmpty()) {
+				buffer.remove(i);
+			} else {
+				buffer.set(i, remainder);
+			}
+		}
+		return changed;
+	}
 
-			BlockState hopperState = world.getBlockState(hopperPos);
-			if (!hopperState.isOf(Blocks.HOPPER)) {
-				removePendingEntry(iterator, world, key);
-				continue;
+	private static void spillBuffers(ServerWorld world, PendingPlantStorage storage, BlockPos[] positions) {
+		for (BlockPos pos : positions) {
+			for (ItemStack stack : storage.buffer(world, pos)) {
+				Block.dropStack(world, pos, stack);
 			}
+		}
+	}
 
-			BlockEntity blockEntity = world.getBlockEntity(hopperPos);
-			if (!(blockEntity instanceof HopperBlockEntity hopper)) {
-				world.setBlockState(hopperPos, pending.belowState, Block.NOTIFY_ALL);
-				removePendingEntry(iterator, world, key);
-				continue;
+	// Hoppers below the soil are driven by hand until they are empty, as with the old
+	// temporary hopper, so the sapling only goes back once the chain has taken the drops.
+	private static boolean isLowerChainReady(ServerWorld world, BlockPos soilBlockPos) {
+		BlockPos current = soilBlockPos.down();
+		int depth = 0;
+		while (depth < 8) {
+			BlockState state = world.getBlockState(current);
+			if (!state.isOf(Blocks.HOPPER)) {
+				return true;
 			}
 
-			boolean changed = false;
-			if (HopperBlockEntity.extract(world, hopper)) {
-				changed = true;
+			BlockEntity blockEntity = world.getBlockEntity(current);
+			if (!(blockEntity instanceof HopperBlockEntity hopper)) {
+				return false;
 			}
 
+			boolean changed = HopperBlockEntity.extract(world, hopper);
 			List<ItemEntity> aboveItems = HopperBlockEntity.getInputItemEntities(world, hopper);
 			for (ItemEntity item : aboveItems) {
 				if (item.isRemoved()) {
@@ -621,20 +762,26 @@ public final class TreeHarvestManager {
 				HopperBlockEntity.extract(world, hopper);
 			}
 
-			boolean itemsRemainAbove = hasItemsOnColumn(world, soilPos);
-			if (!hopper.isEmpty() || itemsRemainAbove || !isLowerChainReady(world, hopperPos)) {
-				continue;
+			if (!hopper.isEmpty() || !getItemsOnColumn(world, current.up()).isEmpty()) {
+				return false;
 			}
 
-			HopperBlockEntity.extract(world, hopper);
-			BlockState storedBelow = pending.belowState;
-			world.setBlockState(hopperPos, storedBelow, Block.NOTIFY_ALL);
-			if (pending.saplingState.canPlaceAt(world, soilPos)) {
-				world.setBlockState(soilPos, pending.saplingState, Block.NOTIFY_ALL);
-			} else {
-				Block.dropStack(world, soilPos, new ItemStack(pending.saplingState.getBlock()));
+			current = current.down();
+			depth++;
+		}
+		return true;
+	}
+
+	private static void restoreBelowStates(ServerWorld world, BlockPos[] positions, PendingPlantStore store, int slot) {
+		// Jobs scheduled before the virtual collector still have a temporary hopper
+		// in place of their soil. Newer jobs never placed one, so a hopper under them
+		// belongs to a player and is left alone.
+		for (int i = 0; i < positions.length; i++) {
+			BlockPos hopperPos = positions[i].down();
+			BlockState belowState = store.below(slot, i);
+			if (world.getBlockState(hopperPos).isOf(Blocks.HOPPER) && !belowState.isOf(Blocks.HOPPER)) {
+				world.setBlockState(hopperPos, belowState, Block.NOTIFY_ALL);
 			}
-			removePendingEntry(iterator, world, key);
 		}
 	}
 }
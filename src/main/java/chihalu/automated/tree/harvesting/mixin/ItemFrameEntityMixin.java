@@ -2,24 +2,86 @@ package chihalu.automated.tree.harvesting.mixin;
 
 import chihalu.automated.tree.harvesting.access.HarvestableItemFrame;
 import net.minecraft.entity.decoration.ItemFrameEntity;
+import net.minecraft.storage.ReadView;
+import net.minecraft.storage.WriteView;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
 @Mixin(ItemFrameEntity.class)
 public class ItemFrameEntityMixin implements HarvestableItemFrame {
+	@Unique
+	private static final String NEXT_CHECK_KEY = "AutomatedTreeHarvestingNextCheck";
+
+	@Unique
+	private static final String CHECK_INTERVAL_KEY = "AutomatedTreeHarvestingInterval";
+
+	@Unique
+	private long automatedTreeHarvesting$nextCheckTime = Long.MIN_VALUE;
+
 	@Unique
 	private long automatedTreeHarvesting$lastCheckTime = Long.MIN_VALUE;
 
-	@Override
-	public boolean automated_tree_harvesting$shouldProcess(long worldTime) {
-		if (automatedTreeHarvesting$lastCheckTime == Long.MIN_VALUE) {
-			automatedTreeHarvesting$lastCheckTime = worldTime;
-			return true;
-		}
-		if (worldTime - automatedTreeHarvesting$lastCheckTime < 20) {
-			return false;
+	@Unique
+	private long automatedTreeHarvesting$lastSeenTime = Long.MIN_VALUE;
+
+	@Unique
+	private int automatedTreeHarvesting$checkInterval = 0;
+
+	@Inject(method = "writeCustomData", at = @At("TAIL"))
+	private void automatedTreeHarvesting$writeSchedule(WriteView view, CallbackInfo ci) {
+		if (automatedTreeHarvesting$nextCheckTime == Long.MIN_VALUE) {
+			return;
 		}
-		automatedTreeHarvesting$lastCheckTime = worldTime;
-		return true;
+		view.putLong(NEXT_CHECK_KEY, automatedTreeHarvesting$nextCheckTime);
+		view.putInt(CHECK_INTERVAL_KEY, automatedTreeHarvesting$checkInterval);
+	}
+
+	@Inject(method = "readCustomData", at = @At("TAIL"))
+	private void automatedTreeHarvesting$readSchedule(ReadView view, CallbackInfo ci) {
+		automatedTreeHarvesting$nextCheckTime = view.getLong(NEXT_CHECK_KEY, Long.MIN_VALUE);
+		automatedTreeHarvesting$checkInterval = view.getInt(CHECK_INTERVAL_KEY, 0);
+	}
+
+	@Override
+	public long automated_tree_harvesting$getNextCheckTime() {
+		return automatedTreeHarvesting$nextCheckTime;
+	}
+
+	@Override
+	public void automated_tree_harvesting$setNextCheckTime(long nextCheckTime) {
+		automatedTreeHarvesting$nextCheckTime = nextCheckTime;
+	}
+
+	@Override
+	public long automated_tree_harvesting$getLastCheckTime() {
+		return automatedTreeHarvesting$lastCheckTime;
+	}
+
+	@Override
+	public void automated_tree_harvesting$setLastCheckTime(long lastCheckTime) {
+		automatedTreeHarvesting$lastCheckTime = lastCheckTime;
+	}
+
+	@Override
+	public long automated_tree_harvesting$getLastSeenTime() {
+		return automatedTreeHarvesting$lastSeenTime;
+	}
+
+	@Override
+	public void automated_tree_harvesting$setLastSeenTime(long lastSeenTime) {
+		automatedTreeHarvesting$lastSeenTime = lastSeenTime;
+	}
+
+	@Override
+	public int automated_tree_harvesting$getCheckInterval() {
+		return automatedTreeHarvesting$checkInterval;
+	}
+
+	@Override
+	public void automated_tree_harvesting$setCheckInterval(int checkInterval) {
+		automatedTreeHarvesting$checkInterval = checkInterval;
 	}
 }
@@ -0,0 +1,36 @@
+package chihalu.automated.tree.harvesting.mixin;
+
+import chihalu.automated.tree.harvesting.access.HarvestWorldStateHolder;
+import chihalu.automated.tree.harvesting.logic.BlockChangeTracker;
+import chihalu.automated.tree.harvesting.logic.HarvestWorldState;
+import net.minecraft.block.BlockState;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(ServerWorld.class)
+public class ServerWorldMixin implements HarvestWorldStateHolder {
+	@Unique
+	private HarvestWorldState automatedTreeHarvesting$harvestState;
+
+	@Inject(method = "onBlockStateChanged", at = @At("HEAD"))
+	private void automatedTreeHarvesting$trackBlockChange(BlockPos pos, BlockState oldState, BlockState newState, CallbackInfo ci) {
+		if (automatedTreeHarvesting$harvestState != null) {
+			BlockChangeTracker.onBlockChanged((ServerWorld) (Object) this, automatedTreeHarvesting$harvestState, pos, oldState, newState);
+		}
+	}
+
+	@Override
+	public HarvestWorldState automated_tree_harvesting$getHarvestState() {
+		return automatedTreeHarvesting$harvestState;
+	}
+
+	@Override
+	public void automated_tree_harvesting$setHarvestState(HarvestWorldState state) {
+		automatedTreeHarvesting$harvestState = state;
+	}
+}
@@ -0,0 +1,99 @@
+package chihalu.automated.tree.harvesting.network;
+
+import chihalu.automated.tree.harvesting.AutomatedTreeHarvesting;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.codec.PacketCodec;
+import net.minecraft.network.packet.CustomPayload;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+
+public record HarvestEffectsPayload(BlockPos base, long[] positions, int[] stateIds) implements CustomPayload {
+	public static final int MAX_BLOCKS = 48;
+	public static final CustomPayload.Id<HarvestEffectsPayload> ID =
+		new CustomPayload.Id<>(Identifier.of(AutomatedTreeHarvesting.MOD_ID, "harvest_effects"));
+	public static final PacketCodec<PacketByteBuf, HarvestEffectsPayload> CODEC =
+		PacketCodec.of(HarvestEffectsPayload::write, HarvestEffectsPayload::read);
+
+	// Wire layout: base position, a palette of raw block state ids, then one entry per
+	// broken block holding its palette index and its offset from the base. Offsets are
+	// zigzag VarInts so a whole tree fits in a few bytes per block.
+	private void write(PacketByteBuf buf) {
+		buf.writeBlockPos(base);
+
+		Int2IntOpenHashMap paletteIndex = new Int2IntOpenHashMap();
+		IntArrayList palette = new IntArrayList();
+		int[] indices = new int[stateIds.length];
+		for (int i = 0; i < stateIds.length; i++) {
+			int index = paletteIndex.getOrDefault(stateIds[i], -1);
+			if (index < 0) {
+				index = palette.size();
+				paletteIndex.put(stateIds[i], index);
+				palette.add(stateIds[i]);
+			}
+			indices[i] = index;
+		}
+
+		buf.writeVarInt(palette.size());
+		for (int i = 0; i < palette.size(); i++) {
+			buf.writeVarInt(palette.getInt(i));
+		}
+
+		buf.writeVarInt(positions.length);
+		for (int i = 0; i < positions.length; i++) {
+			buf.writeVarInt(indices[i]);
+			buf.writeVarInt(zigzag(BlockPos.unpackLongX(positions[i]) - base.getX()));
+			buf.writeVarInt(zigzag(BlockPos.unpackLongY(positions[i]) - base.getY()));
+			buf.writeVarInt(zigzag(BlockPos.unpackLongZ(positions[i]) - base.getZ()));
+		}
+	}
+
+	private static HarvestEffectsPayload read(PacketByteBuf buf) {
+		BlockPos base = buf.readBlockPos();
+
+		// The sender never describes more than MAX_BLOCKS blocks, so larger sizes come
+		// from a malformed packet and are rejected before anything is allocated.
+		int[] palette = new int[readSize(buf)];
+		for (int i = 0; i < palette.length; i++) {
+			palette[i] = buf.readVarInt();
+		}
+
+		int count = readSize(buf);
+		long[] positions = new long[count];
+		int[] stateIds = new int[count];
+		for (int i = 0; i < count; i++) {
+			int index = buf.readVarInt();
+			if (index < 0 || index >= palette.length) {
+				throw new IllegalArgumentException("Harvest effect palette index out of range: " + index);
+			}
+			stateIds[i] = palette[index];
+			int x = base.getX() + unzigzag(buf.readVarInt());
+			int y = base.getY() + unzigzag(buf.readVarInt());
+			int z = base.getZ() + unzigzag(buf.readVarInt());
+			positions[i] = BlockPos.asLong(x, y, z);
+		}
+		return new HarvestEffectsPayload(base, positions, stateIds);
+	}
+
+	private static int readSize(PacketByteBuf buf) {
+		int size = buf.readVarInt();
+		if (size < 0 || size > MAX_BLOCKS) {
+			throw new IllegalArgumentException("Harvest effect size out of range: " + size);
+		}
+		return size;
+	}
+
+	private static int zigzag(int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+
+	private static int unzigzag(int value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	@Override
+	public Id<? extends CustomPayload> getId() {
+		return ID;
+	}
+}
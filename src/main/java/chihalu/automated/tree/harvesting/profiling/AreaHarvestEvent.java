@@ -0,0 +1,11 @@
+package chihalu.automated.tree.harvesting.profiling;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("automated_tree_harvesting.AreaHarvest")
+@Label("Area Harvest")
+@Description("Batched harvest of the grown plots of an area controller")
+public final class AreaHarvestEvent extends HarvestPhaseEvent {
+}
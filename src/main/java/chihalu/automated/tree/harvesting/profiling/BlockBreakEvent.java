@@ -0,0 +1,11 @@
+package chihalu.automated.tree.harvesting.profiling;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("automated_tree_harvesting.BlockBreak")
+@Label("Block Break")
+@Description("Removal of harvested logs or leaves")
+public final class BlockBreakEvent extends HarvestPhaseEvent {
+}
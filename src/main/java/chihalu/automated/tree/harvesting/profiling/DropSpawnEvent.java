@@ -0,0 +1,11 @@
+package chihalu.automated.tree.harvesting.profiling;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("automated_tree_harvesting.DropSpawn")
+@Label("Drop Spawn")
+@Description("Spawning of the collected harvest drops")
+public final class DropSpawnEvent extends HarvestPhaseEvent {
+}
@@ -0,0 +1,11 @@
+package chihalu.automated.tree.harvesting.profiling;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("automated_tree_harvesting.FrameScan")
+@Label("Frame Scan")
+@Description("Full harvest activation of an armed item frame")
+public final class FrameScanEvent extends HarvestPhaseEvent {
+}
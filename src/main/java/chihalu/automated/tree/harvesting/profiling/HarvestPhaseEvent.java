@@ -0,0 +1,25 @@
+package chihalu.automated.tree.harvesting.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+@Category({"Minecraft", "Automated Tree Harvesting"})
+@StackTrace(false)
+public abstract class HarvestPhaseEvent extends Event {
+	@Label("Dimension")
+	public String dimension;
+
+	@Label("Frame X")
+	public int frameX;
+
+	@Label("Frame Y")
+	public int frameY;
+
+	@Label("Frame Z")
+	public int frameZ;
+
+	@Label("Block Count")
+	public int blockCount;
+}
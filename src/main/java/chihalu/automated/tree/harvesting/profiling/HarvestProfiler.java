@@ -0,0 +1,33 @@
+package chihalu.automated.tree.harvesting.profiling;
+
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.profiler.Profilers;
+
+public final class HarvestProfiler {
+	private HarvestProfiler() {
+	}
+
+	public static <E extends HarvestPhaseEvent> E begin(String section, E event) {
+		Profilers.get().push(section);
+		event.begin();
+		return event;
+	}
+
+	public static void end(HarvestPhaseEvent event, ServerWorld world, BlockPos framePos, int blockCount) {
+		event.end();
+		if (event.shouldCommit()) {
+			if (world != null) {
+				event.dimension = world.getRegistryKey().getValue().toString();
+			}
+			if (framePos != null) {
+				event.frameX = framePos.getX();
+				event.frameY = framePos.getY();
+				event.frameZ = framePos.getZ();
+			}
+			event.blockCount = blockCount;
+			event.commit();
+		}
+		Profilers.get().pop();
+	}
+}
@@ -0,0 +1,11 @@
+package chihalu.automated.tree.harvesting.profiling;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("automated_tree_harvesting.LeafCollection")
+@Label("Leaf Collection")
+@Description("Flood fill over the leaves connected to the harvested logs")
+public final class LeafCollectionEvent extends HarvestPhaseEvent {
+}
@@ -0,0 +1,11 @@
+package chihalu.automated.tree.harvesting.profiling;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("automated_tree_harvesting.LogCollection")
+@Label("Log Collection")
+@Description("Flood fill over the logs connected to the tree base")
+public final class LogCollectionEvent extends HarvestPhaseEvent {
+}
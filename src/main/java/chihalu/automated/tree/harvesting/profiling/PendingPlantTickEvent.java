@@ -0,0 +1,11 @@
+package chihalu.automated.tree.harvesting.profiling;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("automated_tree_harvesting.PendingPlantTick")
+@Label("Pending Plant Tick")
+@Description("Processing of pending sapling replants")
+public final class PendingPlantTickEvent extends HarvestPhaseEvent {
+}
@@ -0,0 +1,11 @@
+package chihalu.automated.tree.harvesting.profiling;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("automated_tree_harvesting.StorageSave")
+@Label("Storage Save")
+@Description("Serialization of the pending plant storage")
+public final class StorageSaveEvent extends HarvestPhaseEvent {
+}
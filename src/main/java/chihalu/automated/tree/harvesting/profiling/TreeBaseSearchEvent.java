@@ -0,0 +1,11 @@
+package chihalu.automated.tree.harvesting.profiling;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("automated_tree_harvesting.TreeBaseSearch")
+@Label("Tree Base Search")
+@Description("Search for a log next to the frame's support block")
+public final class TreeBaseSearchEvent extends HarvestPhaseEvent {
+}
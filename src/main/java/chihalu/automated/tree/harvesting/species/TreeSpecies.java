@@ -0,0 +1,31 @@
+package chihalu.automated.tree.harvesting.species;
+
+import chihalu.automated.tree.harvesting.config.HarvestProfile;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.registry.tag.TagKey;
+import net.minecraft.util.Identifier;
+
+public record TreeSpecies(
+	Identifier id,
+	TagKey<Block> logs,
+	BlockState sapling,
+	int footprint,
+	TagKey<Block> leaves,
+	int horizontalRadius,
+	int verticalAbove
+) {
+	public boolean requiresTwoByTwo() {
+		return footprint == 2;
+	}
+
+	public HarvestProfile scanProfile(HarvestProfile profile) {
+		if (horizontalRadius <= 0 && verticalAbove <= 0) {
+			return profile;
+		}
+		return profile.withScanBounds(
+			horizontalRadius > 0 ? horizontalRadius : profile.horizontalRadius(),
+			verticalAbove > 0 ? verticalAbove : profile.verticalAbove()
+		);
+	}
+}
@@ -0,0 +1,183 @@
+package chihalu.automated.tree.harvesting.species;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import chihalu.automated.tree.harvesting.AutomatedTreeHarvesting;
+import chihalu.automated.tree.harvesting.config.HarvestConfig;
+import chihalu.automated.tree.harvesting.config.HarvestProfile;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import net.fabricmc.fabric.api.resource.SimpleSynchronousResourceReloadListener;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.registry.Registries;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.registry.entry.RegistryEntry;
+import net.minecraft.registry.tag.BlockTags;
+import net.minecraft.registry.tag.TagKey;
+import net.minecraft.resource.Resource;
+import net.minecraft.resource.ResourceManager;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.MathHelper;
+
+public final class TreeSpeciesManager implements SimpleSynchronousResourceReloadListener {
+	private static final String DIRECTORY = "tree_species";
+	private static final Identifier ID = Identifier.of(AutomatedTreeHarvesting.MOD_ID, DIRECTORY);
+	private static final int MAX_HORIZONTAL_RADIUS = 16;
+	private static final int MAX_VERTICAL_ABOVE = 64;
+
+	private static volatile List<TreeSpecies> definitions = List.of();
+	private static volatile Map<Block, TreeSpecies> byLog = Map.of();
+	private static volatile Map<HarvestProfile, ProfileTable> profileTables = Map.of();
+
+	// Scan bounds of every species resolved against one configured profile, and the
+	// widest leaf radius any of them reaches.
+	private record ProfileTable(Map<TreeSpecies, HarvestProfile> scanProfiles, int leafRadius) {
+	}
+
+	public static TreeSpecies get(BlockState logState) {
+		return byLog.get(logState.getBlock());
+	}
+
+	public static List<TreeSpecies> definitions() {
+		return definitions;
+	}
+
+	public static HarvestProfile scanProfile(TreeSpecies species, HarvestProfile profile) {
+		ProfileTable table = profileTables.get(profile);
+		HarvestProfile scanProfile = table != null ? table.scanProfiles().get(species) : null;
+		return scanProfile != null ? scanProfile : species.scanProfile(profile);
+	}
+
+	public static int leafRadius(HarvestProfile profile) {
+		ProfileTable table = profileTables.get(profile);
+		return table != null ? table.leafRadius() : buildTable(profile, definitions).leafRadius();
+	}
+
+	// Runs whenever the species or the configured profiles change, so harvests only
+	// look up the resolved profiles.
+	public static void compileProfiles() {
+		List<TreeSpecies> species = definitions;
+		Map<HarvestProfile, ProfileTable> tables = new Reference2ObjectOpenHashMap<>();
+		for (HarvestProfile profile : HarvestConfig.profiles()) {
+			tables.computeIfAbsent(profile, ignored -> buildTable(profile, species));
+		}
+		profileTables = tables;
+	}
+
+	private static ProfileTable buildTable(HarvestProfile profile, List<TreeSpecies> species) {
+		Map<TreeSpecies, HarvestProfile> scanProfiles = new Reference2ObjectOpenHashMap<>();
+		int leafRadius = profile.leafRadius();
+		for (TreeSpecies entry : species) {
+			HarvestProfile scanProfile = entry.scanProfile(profile);
+			scanProfiles.put(entry, scanProfile);
+			leafRadius = Math.max(leafRadius, scanProfile.leafRadius());
+		}
+		return new ProfileTable(scanProfiles, leafRadius);
+	}
+
+	// Tags are only bound after the reload listeners have run, so the definitions are
+	// parsed on reload and expanded into the per-block table once tags are loaded.
+	public static void compile() {
+		Map<Block, TreeSpecies> table = new Reference2ObjectOpenHashMap<>();
+		for (TreeSpecies species : definitions) {
+			for (RegistryEntry<Block> entry : Registries.BLOCK.iterateEntries(species.logs())) {
+				TreeSpecies previous = table.putIfAbsent(entry.value(), species);
+				if (previous != null) {
+					AutomatedTreeHarvesting.LOGGER.warn(
+						"Log {} is claimed by tree species {} and {}, using {}",
+						Registries.BLOCK.getId(entry.value()),
+						previous.id(),
+						species.id(),
+						previous.id()
+					);
+				}
+			}
+		}
+		byLog = table;
+	}
+
+	@Override
+	public Identifier getFabricId() {
+		return ID;
+	}
+
+	@Override
+	public void reload(ResourceManager manager) {
+		Map<Identifier, Resource> resources = new TreeMap<>(manager.findResources(DIRECTORY, id -> id.getPath().endsWith(".json")));
+		List<TreeSpecies> loaded = new ArrayList<>();
+		for (Map.Entry<Identifier, Resource> entry : resources.entrySet()) {
+			Identifier file = entry.getKey();
+			String path = file.getPath();
+			Identifier id = Identifier.of(file.getNamespace(), path.substring(DIRECTORY.length() + 1, path.length() - ".json".length()));
+			try (Reader reader = entry.getValue().getReader()) {
+				TreeSpecies species = parse(id, JsonParser.parseReader(reader).getAsJsonObject());
+				if (species != null) {
+					loaded.add(species);
+				}
+			} catch (IOException | JsonParseException | IllegalStateException | NumberFormatException e) {
+				AutomatedTreeHarvesting.LOGGER.warn("Failed to load tree species {}", file, e);
+			}
+		}
+		definitions = List.copyOf(loaded);
+		compileProfiles();
+	}
+
+	private static TreeSpecies parse(Identifier id, JsonObject json) {
+		Identifier logs = getIdentifier(json, "logs");
+		Identifier saplingId = getIdentifier(json, "sapling");
+		if (logs == null || saplingId == null) {
+			AutomatedTreeHarvesting.LOGGER.warn("Tree species {} needs both 'logs' and 'sapling'", id);
+			return null;
+		}
+		// Optional species, such as trees from a later game version, are skipped quietly.
+		if (!Registries.BLOCK.containsId(saplingId)) {
+			return null;
+		}
+
+		int footprint = getInt(json, "footprint", 1);
+		if (footprint != 1 && footprint != 2) {
+			AutomatedTreeHarvesting.LOGGER.warn("Tree species {} has unsupported footprint {}", id, footprint);
+			return null;
+		}
+
+		Identifier leaves = getIdentifier(json, "leaves");
+		int horizontalRadius = getInt(json, "horizontalRadius", 0);
+		int verticalAbove = getInt(json, "verticalAbove", 0);
+		if (horizontalRadius > MAX_HORIZONTAL_RADIUS || verticalAbove > MAX_VERTICAL_ABOVE) {
+			AutomatedTreeHarvesting.LOGGER.warn(
+				"Tree species {} scan bounds are limited to a horizontal radius of {} and {} blocks above",
+				id,
+				MAX_HORIZONTAL_RADIUS,
+				MAX_VERTICAL_ABOVE
+			);
+		}
+		return new TreeSpecies(
+			id,
+			TagKey.of(RegistryKeys.BLOCK, logs),
+			Registries.BLOCK.get(saplingId).getDefaultState(),
+			footprint,
+			leaves != null ? TagKey.of(RegistryKeys.BLOCK, leaves) : BlockTags.LEAVES,
+			MathHelper.clamp(horizontalRadius, 0, MAX_HORIZONTAL_RADIUS),
+			MathHelper.clamp(verticalAbove, 0, MAX_VERTICAL_ABOVE)
+		);
+	}
+
+	private static Identifier getIdentifier(JsonObject json, String key) {
+		JsonElement element = json.get(key);
+		return element != null && element.isJsonPrimitive() ? Identifier.tryParse(element.getAsString()) : null;
+	}
+
+	private static int getInt(JsonObject json, String key, int fallback) {
+		JsonElement element = json.get(key);
+		return element != null && element.isJsonPrimitive() ? element.getAsInt() : fallback;
+	}
+}